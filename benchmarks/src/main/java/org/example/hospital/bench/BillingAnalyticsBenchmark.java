@@ -0,0 +1,53 @@
+package org.example.hospital.bench;
+
+import org.example.hospital.stats.BillBucket;
+import org.example.hospital.stats.BillDimension;
+import org.example.hospital.stats.BillFilter;
+import org.example.hospital.stats.BillGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory billing reports of {@code BillingAnalytics} against {@link HospitalDatabase} at each table size.
+ * Compare {@code byDepartment} with {@code PatientQueryBenchmark.averageBillPerDepartment}, the same grouping
+ * done by PostgreSQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingAnalyticsBenchmark {
+
+    private static final BillFilter CARDIOLOGY_ABOVE_10K =
+            new BillFilter("Cardiology", null, null, new BigDecimal("10000"), null);
+
+    @Benchmark
+    public List<BillGroup> byDepartment(HospitalDatabase db) {
+        return db.billingAnalytics.groupBy(BillDimension.DEPARTMENT, BillFilter.NONE);
+    }
+
+    @Benchmark
+    public List<BillGroup> byDoctor(HospitalDatabase db) {
+        return db.billingAnalytics.groupBy(BillDimension.DOCTOR, BillFilter.NONE);
+    }
+
+    @Benchmark
+    public List<BillGroup> byDiagnosisFiltered(HospitalDatabase db) {
+        return db.billingAnalytics.groupBy(BillDimension.DIAGNOSIS, CARDIOLOGY_ABOVE_10K);
+    }
+
+    @Benchmark
+    public List<BillBucket> histogram(HospitalDatabase db) {
+        return db.billingAnalytics.histogram(BillFilter.NONE, 50);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.hospital.bench;
+
+import org.example.hospital.model.DoctorPatientCount;
+import org.example.hospital.stats.DoctorLoad;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookups of the live {@code DoctorWorkload} index against {@link HospitalDatabase} at each table size.
+ * Compare {@code doctorsWithMoreThan} with {@code PatientQueryBenchmark.doctorsWithPatientCount}, the same
+ * report computed by PostgreSQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoctorWorkloadBenchmark {
+
+    /** Same threshold as {@code PatientQueryBenchmark}: roughly half of the doctors are listed. */
+    private static final int MIN_PATIENT_COUNT = 200;
+
+    @Benchmark
+    public List<DoctorPatientCount> doctorsWithMoreThan(HospitalDatabase db) {
+        return db.doctorWorkload.doctorsWithMoreThan(MIN_PATIENT_COUNT);
+    }
+
+    @Benchmark
+    public List<DoctorLoad> busiestTen(HospitalDatabase db) {
+        return db.doctorWorkload.ranked(null, 10, true);
+    }
+
+    @Benchmark
+    public Optional<DoctorLoad> leastLoadedInDepartment(HospitalDatabase db) {
+        return db.doctorWorkload.leastLoaded("Cardiology");
+    }
+}
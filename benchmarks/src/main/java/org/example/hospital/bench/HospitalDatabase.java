@@ -0,0 +1,159 @@
+package org.example.hospital.bench;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.hospital.HospitalApiApplication;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.PatientBulkLoader;
+import org.example.hospital.repo.PatientRepository;
+import org.example.hospital.stats.BillingAnalytics;
+import org.example.hospital.stats.DoctorWorkload;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A PostgreSQL database loaded with {@code rows} patients, plus the application context wired to it.
+ * <p>
+ * By default an embedded PostgreSQL is started per trial. Pass {@code -Dbench.jdbcUrl=...}
+ * (and optionally {@code -Dbench.user}, {@code -Dbench.password}) to use a locally started server instead;
+ * its {@code patients} and {@code staff} tables are dropped and recreated by the Flyway migrations,
+ * so point it at a scratch database.
+ */
+@State(Scope.Benchmark)
+public class HospitalDatabase {
+
+    private static final int PATIENTS_PER_DOCTOR = 200;
+    private static final String[] DEPARTMENTS = {
+            "Cardiology", "Pediatrics", "Oncology", "Neurology", "Orthopedics",
+            "Dermatology", "Radiology", "Psychiatry", "Urology", "Gastroenterology"};
+    private static final String[] DIAGNOSES = {
+            "Arrhythmia", "Fever", "Broken Arm", "Diabetes", "Checkup", "Headache", "Flu", "Allergies"};
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    public PatientRepository patientRepository;
+    public JdbcTemplate jdbcTemplate;
+    public EntityManagerFactory entityManagerFactory;
+    public BillingAnalytics billingAnalytics;
+    public DoctorWorkload doctorWorkload;
+    public long[] doctorIds;
+    public long minPatientId;
+    /** Mean bill, the threshold {@code /patients/above-avg-bill} uses by default. */
+    public BigDecimal meanBill;
+
+    private EmbeddedPostgres embeddedPostgres;
+    private ConfigurableApplicationContext context;
+    private int nextDoctor;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        String url = System.getProperty("bench.jdbcUrl");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "postgres");
+        if (url == null) {
+            embeddedPostgres = EmbeddedPostgres.start();
+            url = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        } else {
+            dropSchema(url, user, password);
+        }
+        // Como argumentos de línea de comandos, para que prevalezcan sobre application.properties
+        context = new SpringApplicationBuilder(HospitalApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false",
+                        "--hospital.stats.reconcile-interval-ms=86400000",
+                        "--logging.level.root=WARN");
+        patientRepository = context.getBean(PatientRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        billingAnalytics = context.getBean(BillingAnalytics.class);
+        doctorWorkload = context.getBean(DoctorWorkload.class);
+        load();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        context.close();
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    /**
+     * @return Doctor IDs in round-robin order, so consecutive calls do not hit the same cached rows.
+     */
+    public long nextDoctorId() {
+        long id = doctorIds[nextDoctor];
+        nextDoctor = (nextDoctor + 1) % doctorIds.length;
+        return id;
+    }
+
+    private static void dropSchema(String url, String user, String password) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS patients, staff, flyway_schema_history CASCADE");
+        }
+    }
+
+    private void load() {
+        int doctors = Math.max(1, rows / PATIENTS_PER_DOCTOR);
+        List<Object[]> staffRows = new ArrayList<>(doctors);
+        for (int i = 0; i < doctors; i++) {
+            staffRows.add(new Object[]{"Dr. Bench " + i, "DOCTOR", DEPARTMENTS[i % DEPARTMENTS.length]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO staff (name, role, department) VALUES (?, ?, ?)", staffRows);
+        doctorIds = jdbcTemplate.queryForList("SELECT id FROM staff WHERE role = 'DOCTOR' ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        long[] ids = doctorIds;
+        SplittableRandom random = new SplittableRandom(42);
+        Iterator<Patient> patients = new Iterator<>() {
+            private int produced;
+
+            @Override
+            public boolean hasNext() {
+                return produced < rows;
+            }
+
+            @Override
+            public Patient next() {
+                Staff doctor = new Staff();
+                doctor.setId(ids[random.nextInt(ids.length)]);
+                produced++;
+                return new Patient("Patient " + produced, DIAGNOSES[random.nextInt(DIAGNOSES.length)],
+                        Money.ofMinor(random.nextLong(5_000, 2_000_000)), doctor);
+            }
+        };
+        context.getBean(PatientBulkLoader.class).copyPatients(patients);
+        // VACUUM además de ANALYZE: marca las páginas como visibles y permite index-only scans
+        jdbcTemplate.execute("VACUUM ANALYZE patients");
+        jdbcTemplate.execute("VACUUM ANALYZE staff");
+        minPatientId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM patients", Long.class);
+        meanBill = jdbcTemplate.queryForObject("SELECT AVG(bill_amount) FROM patients", BigDecimal.class);
+        billingAnalytics.rebuild(); // El COPY no publica eventos: la instantánea se cargó vacía al arrancar
+        doctorWorkload.rebuild();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.hospital.bench;
+
+import jakarta.persistence.EntityManager;
+import org.example.hospital.model.Patient;
+import org.example.hospital.repo.PatientRowMapper;
+import org.example.hospital.sql.PatientQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning the same {@value #PAGE} patient rows (with their doctors) into objects:
+ * managed entities via a native query, managed entities via a JPQL join fetch, and plain objects via JDBC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HydrationBenchmark {
+
+    private static final int PAGE = 1000;
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Patient> nativeQueryEntities(HospitalDatabase db) {
+        EntityManager em = db.entityManagerFactory.createEntityManager();
+        try {
+            // Mapeo a Patient.class: el doctor se carga después, fuera de la consulta principal
+            return em.createNativeQuery("SELECT * FROM patients WHERE id >= ? AND id < ?", Patient.class)
+                    .setParameter(1, db.minPatientId)
+                    .setParameter(2, db.minPatientId + PAGE)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<Patient> jpqlJoinFetchEntities(HospitalDatabase db) {
+        EntityManager em = db.entityManagerFactory.createEntityManager();
+        try {
+            return em.createQuery("SELECT p FROM Patient p JOIN FETCH p.assignedDoctor WHERE p.id >= :from AND p.id < :to",
+                            Patient.class)
+                    .setParameter("from", db.minPatientId)
+                    .setParameter("to", db.minPatientId + PAGE)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<Patient> jdbcRowMapper(HospitalDatabase db) {
+        // Todas las facturas de HospitalDatabase son positivas: la página son las mismas filas que el rango de IDs
+        return db.jdbcTemplate.query(PatientQuery.PATIENTS_WITH_BILL_ABOVE_PAGE.getSql(),
+                PatientRowMapper.INSTANCE, BigDecimal.ZERO, db.minPatientId - 1, PAGE);
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.hospital.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@code List<Patient>} with nested {@code Staff}, using the same
+ * ObjectMapper defaults Spring MVC uses for the controllers. No database needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int DOCTORS = 50;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Patient> patients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Staff> doctors = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            Staff doctor = new Staff("Dr. Bench " + i, Role.DOCTOR, "Department " + (i % 10));
+            doctor.setId((long) i + 1);
+            doctors.add(doctor);
+        }
+        patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Patient patient = new Patient("Patient " + i, "Diagnosis " + (i % 8),
+                    Money.ofMinor(10_000L + i * 37L), doctors.get(i % DOCTORS));
+            patient.setId((long) i + 1);
+            patients.add(patient);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePatients() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patients);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.hospital.bench;
+
+import org.example.hospital.model.DepartmentAverageBill;
+import org.example.hospital.model.DoctorPatientCount;
+import org.example.hospital.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code PatientQuery} read operations, called through {@code PatientRepositoryCustom}
+ * against {@link HospitalDatabase} at each table size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PatientQueryBenchmark {
+
+    /** Slightly below the average patients per doctor, so HAVING keeps roughly half of them. */
+    private static final int MIN_PATIENT_COUNT = 200;
+
+    /** A diagnosis prefix (one in eight patients) and a misspelled name, for the ranked search. */
+    private static final String[] SEARCH_TEXTS = {"diab", "Patiant 4242"};
+    private int nextSearch;
+
+    @Benchmark
+    public List<Patient> findPatientsForDoctor(HospitalDatabase db) {
+        return db.patientRepository.findPatientsForDoctor(db.nextDoctorId());
+    }
+
+    @Benchmark
+    public List<DepartmentAverageBill> averageBillPerDepartment(HospitalDatabase db) {
+        return db.patientRepository.averageBillPerDepartment();
+    }
+
+    @Benchmark
+    public List<DoctorPatientCount> doctorsWithPatientCount(HospitalDatabase db) {
+        return db.patientRepository.doctorsWithPatientCount(MIN_PATIENT_COUNT);
+    }
+
+    @Benchmark
+    public List<Patient> patientsWithBillAbove(HospitalDatabase db) {
+        return db.patientRepository.patientsWithBillAbove(db.meanBill);
+    }
+
+    @Benchmark
+    public List<Patient> searchPatients(HospitalDatabase db) {
+        nextSearch = (nextSearch + 1) % SEARCH_TEXTS.length;
+        return db.patientRepository.searchPatients(SEARCH_TEXTS[nextSearch], 20, 0);
+    }
+}
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 latency of the API in platform-thread and virtual-thread mode.
+#
+# Requirements: Java 21+ (virtual threads), a running PostgreSQL configured as in
+# application.properties, and the `hey` load generator (https://github.com/rakyll/hey).
+#
+# Usage: loadtest/compare-thread-modes.sh [duration] [concurrency]
+#   e.g. loadtest/compare-thread-modes.sh 30s 400
+set -euo pipefail
+
+DURATION="${1:-30s}"
+CONCURRENCY="${2:-200}"
+PORT=8089
+BASE="http://localhost:${PORT}"
+ENDPOINTS=(
+  "/patients/1"
+  "/staff/1"
+  "/patients?limit=100"
+  "/patients/for-doctor?doctorId=1"
+  "/patients/above-avg-bill?limit=100"
+  "/patients/stats/avg-bill-per-department"
+  "/patients/stats/doctors-with-many-patients?minCount=3"
+)
+
+cd "$(dirname "$0")/.."
+command -v hey >/dev/null || { echo "hey not found on PATH" >&2; exit 1; }
+mvn -B -q -DskipTests package
+JAR=$(ls target/hospital-api-*-exec.jar | head -1)
+
+run_mode() {
+  local mode="$1" virtual="$2"
+  java -jar "$JAR" --spring.threads.virtual.enabled="$virtual" --spring.jpa.show-sql=false >"target/loadtest-$mode.log" 2>&1 &
+  local pid=$!
+  for _ in $(seq 1 60); do
+    curl -sf "$BASE/actuator/health" >/dev/null && break
+    sleep 1
+  done
+  for endpoint in "${ENDPOINTS[@]}"; do
+    local out rps p99
+    out=$(hey -z "$DURATION" -c "$CONCURRENCY" "$BASE$endpoint")
+    rps=$(awk '/Requests\/sec/ {print $2}' <<<"$out")
+    p99=$(awk '/ 99% in / {print $3}' <<<"$out")
+    printf '%-9s %-55s %12s req/s   p99 %ss\n' "$mode" "$endpoint" "$rps" "$p99"
+  done
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+echo "duration=$DURATION concurrency=$CONCURRENCY"
+run_mode platform false
+run_mode virtual true
@@ -0,0 +1,92 @@
+package org.example.hospital;
+
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads the sample staff and patients into an empty database, enabled with {@code hospital.demo-data.enabled=true}.
+ * <p>
+ * Idempotent: nothing is inserted once the staff table has any row, so restarts do not duplicate the data.
+ * Everything goes in with one statement (staff and patients together) inside a transaction that holds an
+ * advisory lock, so instances starting at the same time cannot both seed.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.demo-data.enabled", havingValue = "true")
+public class DemoDataSeeder implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DemoDataSeeder.class);
+
+    // Clave del bloqueo consultivo, distinta de la que usa Flyway
+    private static final long SEED_LOCK = 0x686f_7370_6465_6d6fL;
+
+    // Cada paciente se une a su doctor por nombre; seq conserva el orden de los IDs de la versión anterior
+    private static final String SEED_SQL = """
+        WITH doctors AS (
+            INSERT INTO staff (name, role, department)
+            SELECT s.name, s.role, s.department
+            FROM (VALUES
+                (1, 'Dr. Smith', 'DOCTOR', 'Cardiology'),
+                (2, 'Dr. Jones', 'DOCTOR', 'Pediatrics'),
+                (3, 'Nurse Anna', 'NURSE', 'ER'),
+                (4, 'Admin Bob', 'ADMIN', 'Administration'),
+                (5, 'Dr. Clark', 'DOCTOR', 'Oncology'),
+                (6, 'Dr. Davis', 'DOCTOR', 'Cardiology')
+            ) AS s (seq, name, role, department)
+            WHERE NOT EXISTS (SELECT 1 FROM staff)
+            ORDER BY s.seq
+            RETURNING id, name
+        )
+        INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id)
+        SELECT p.name, p.diagnosis, p.bill_amount, d.id
+        FROM (VALUES
+            (1, 'John Doe', 'Arrhythmia', 4500.00, 'Dr. Smith'),
+            (2, 'Jane Roe', 'Fever', 800.50, 'Dr. Jones'),
+            (3, 'Peter Pan', 'Broken Arm', 1200.00, 'Dr. Jones'),
+            (4, 'Alice Wonderland', 'Diabetes', 3200.75, 'Dr. Smith'),
+            (5, 'Bob Builder', 'Checkup', 250.00, 'Dr. Clark'),
+            (6, 'Charlie Chaplin', 'Headache', 150.00, 'Dr. Jones'),
+            (7, 'Diana Prince', 'Heart Murmur', 6000.00, 'Dr. Smith'),
+            (8, 'Eve Harrington', 'Flu', 700.00, 'Dr. Clark'),
+            (9, 'Frank Sinatra', 'Cancer', 15000.00, 'Dr. Clark'),
+            (10, 'Grace Kelly', 'Routine Checkup', 300.00, 'Dr. Davis'),
+            (11, 'Harry Potter', 'Magic Sickness', 9000.00, 'Dr. Davis'),
+            (12, 'Ivy League', 'Allergies', 400.00, 'Dr. Smith'),
+            (13, 'Jack Sparrow', 'Scurvy', 1100.00, 'Dr. Smith')
+        ) AS p (seq, name, diagnosis, bill_amount, doctor)
+        JOIN doctors d ON d.name = p.doctor
+        ORDER BY p.seq
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DemoDataSeeder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer patients = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + SEED_LOCK + ")");
+            return jdbcTemplate.update(SEED_SQL);
+        });
+        if (patients != null && patients > 0) {
+            // Insertado sin pasar por JPA: que las estadísticas en memoria se reconstruyan
+            eventPublisher.publishEvent(new PatientsBulkChangedEvent(patients));
+            log.info("Sample data initialized: {} patients", patients);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.hospital.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free hand-off between the write path and {@link AuditWriter}.
+ * <p>
+ * Every change event becomes an {@link AuditRecord} appended to a {@link ConcurrentLinkedQueue}; capacity is
+ * enforced by reserving a slot with a CAS on a counter first, so producers never take a lock. When the queue is
+ * full the {@link OverflowPolicy} decides whether the producer waits for space (the default) or the record is
+ * dropped. A dropped record is always logged and counted; with {@code BLOCK} that only happens when no writer is
+ * running any more to free space, i.e. during shutdown, or when none was freed within
+ * {@code hospital.audit.block-timeout-ms}, so a stalled writer cannot hold request threads indefinitely.
+ * Serialization and the database insert happen on the writer thread, not in the request.
+ * <p>
+ * Metrics: {@code hospital.audit.queue.depth}, {@code hospital.audit.queue.oldest} (age in seconds of the
+ * oldest pending record, i.e. the current lag) and {@code hospital.audit.records{result=dropped}}.
+ */
+@Component
+public class AuditQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditQueue.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final ConcurrentLinkedQueue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final int wakeUpThreshold;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Counter dropped;
+    private volatile Thread consumer;
+
+    public AuditQueue(@Value("${hospital.audit.capacity:10000}") int capacity,
+                      @Value("${hospital.audit.batch-size:500}") int batchSize,
+                      @Value("${hospital.audit.overflow:BLOCK}") OverflowPolicy overflowPolicy,
+                      @Value("${hospital.audit.block-timeout-ms:1000}") long blockTimeoutMs,
+                      MeterRegistry registry) {
+        this.capacity = capacity;
+        this.wakeUpThreshold = Math.min(batchSize, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.dropped = Counter.builder("hospital.audit.records")
+                .description("Audit records by outcome")
+                .tag("result", "dropped")
+                .register(registry);
+        Gauge.builder("hospital.audit.queue.depth", size, AtomicInteger::get)
+                .description("Audit records waiting to be written")
+                .register(registry);
+        Gauge.builder("hospital.audit.queue.oldest", this, AuditQueue::oldestAgeSeconds)
+                .description("Age of the oldest audit record waiting to be written")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        Long id = event.after() != null ? event.after().id() : event.before().id();
+        offer(new AuditRecord(Instant.now(), "patient", id, action(event.before(), event.after()),
+                event.before(), event.after()));
+    }
+
+    @EventListener
+    public void onStaffChanged(StaffChangedEvent event) {
+        Long id = event.after() != null ? event.after().id() : event.before().id();
+        offer(new AuditRecord(Instant.now(), "staff", id, action(event.before(), event.after()),
+                event.before(), event.after()));
+    }
+
+    @EventListener
+    public void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        offer(new AuditRecord(Instant.now(), "patient", null, AuditRecord.Action.BULK, null,
+                Map.of("rows", event.rows())));
+    }
+
+    @EventListener
+    public void onPatientsReassigned(PatientsReassignedEvent event) {
+        offer(new AuditRecord(Instant.now(), "patient", null, AuditRecord.Action.REASSIGNED,
+                Map.of("assignedDoctorId", event.from().id()),
+                Map.of("assignedDoctorId", event.to().id(), "rows", event.moved().patients())));
+    }
+
+    /**
+     * Enqueues a record, applying the overflow policy when the queue is full.
+     * @return false if the record was dropped.
+     */
+    public boolean offer(AuditRecord record) {
+        if (!tryReserve() && !(overflowPolicy == OverflowPolicy.BLOCK && awaitReserve())) {
+            recordDropped(List.of(record), "audit queue full");
+            return false;
+        }
+        queue.add(record);
+        if (size.get() >= wakeUpThreshold) {
+            Thread waiting = consumer;
+            if (waiting != null) {
+                LockSupport.unpark(waiting); // Lote completo: no esperar al siguiente intervalo
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves up to {@code max} records into {@code batch}, oldest first.
+     * @return Number of records moved.
+     */
+    int drainTo(List<AuditRecord> batch, int max) {
+        int drained = 0;
+        AuditRecord record;
+        while (drained < max && (record = queue.poll()) != null) {
+            batch.add(record);
+            drained++;
+        }
+        size.addAndGet(-drained);
+        return drained;
+    }
+
+    /**
+     * Registers the single consumer thread, which producers unpark once a full batch is waiting.
+     */
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Logs and counts records that will never be written.
+     * @param reason Why, for the log.
+     */
+    void recordDropped(List<AuditRecord> records, String reason) {
+        for (AuditRecord record : records) {
+            log.warn("Audit record dropped ({}): {} {} {} at {}", reason, record.action(), record.entity(),
+                    record.entityId(), record.occurredAt());
+        }
+        dropped.increment(records.size());
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Waits for a slot as long as a writer is running to free one, up to the block timeout.
+     * @return false if there is no writer, so the queue would never drain, or the timeout expired.
+     */
+    private boolean awaitReserve() {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (consumer != null && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (tryReserve()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double oldestAgeSeconds() {
+        AuditRecord oldest = queue.peek();
+        return oldest == null ? 0 : Duration.between(oldest.occurredAt(), Instant.now()).toMillis() / 1000.0;
+    }
+
+    private static AuditRecord.Action action(Object before, Object after) {
+        if (before == null) {
+            return AuditRecord.Action.CREATED;
+        }
+        return after == null ? AuditRecord.Action.DELETED : AuditRecord.Action.UPDATED;
+    }
+}
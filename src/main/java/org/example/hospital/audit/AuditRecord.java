@@ -0,0 +1,19 @@
+package org.example.hospital.audit;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change log, as queued by {@link AuditQueue} and written by {@link AuditWriter}.
+ * @param occurredAt When the change was published.
+ * @param entity Changed entity type, e.g. {@code patient} or {@code staff}.
+ * @param entityId ID of the changed row, or null for bulk changes.
+ * @param action What happened.
+ * @param before State before the change (serialized to JSON by the writer), or null.
+ * @param after State after the change (serialized to JSON by the writer), or null.
+ */
+public record AuditRecord(Instant occurredAt, String entity, Long entityId, Action action, Object before, Object after) {
+
+    public enum Action {
+        CREATED, UPDATED, DELETED, BULK, REASSIGNED
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.hospital.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single background thread that drains {@link AuditQueue} into the append-only {@code audit_log} table.
+ * <p>
+ * Records are written in JDBC batches of up to {@code hospital.audit.batch-size}, as soon as a full batch is
+ * waiting or every {@code hospital.audit.flush-interval-ms} otherwise. If the insert fails the same batch is
+ * retried with backoff; meanwhile the queue fills up and its overflow policy applies (by default, producers
+ * wait). On shutdown whatever is still queued is flushed before the DataSource closes.
+ * <p>
+ * Metrics: {@code hospital.audit.records{result=written}}, {@code hospital.audit.batch} (insert latency)
+ * and {@code hospital.audit.lag} (time from the change to its row being written).
+ */
+@Component
+public class AuditWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_log (occurred_at, entity, entity_id, action, before_state, after_state) " +
+                    "VALUES (?, ?, ?, ?, ?::jsonb, ?::jsonb)";
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    private final AuditQueue queue;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Counter written;
+    private final Timer batchTimer;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AuditWriter(AuditQueue queue,
+                       JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${hospital.audit.batch-size:500}") int batchSize,
+                       @Value("${hospital.audit.flush-interval-ms:200}") long flushIntervalMs,
+                       MeterRegistry registry) {
+        this.queue = queue;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.written = Counter.builder("hospital.audit.records")
+                .description("Audit records by outcome")
+                .tag("result", "written")
+                .register(registry);
+        this.batchTimer = Timer.builder("hospital.audit.batch")
+                .description("Latency of audit_log batch inserts")
+                .register(registry);
+        this.lag = Timer.builder("hospital.audit.lag")
+                .description("Time from a change to its audit record being written")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+        queue.setConsumer(thread);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.setConsumer(null);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        long backoffMs = 0;
+        while (running || queue.size() > 0 || !batch.isEmpty()) {
+            if (batch.isEmpty() && queue.drainTo(batch, batchSize) == 0) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            try {
+                write(batch);
+                batch.clear();
+                backoffMs = 0;
+            } catch (DataAccessException e) {
+                if (!running) {
+                    // Apagando y la base no responde: no bloquear el cierre indefinidamente
+                    log.error("Discarding {} audit records ({} more queued) during shutdown", batch.size(), queue.size(), e);
+                    queue.recordDropped(batch, "database unavailable during shutdown");
+                    batch.clear();
+                    continue;
+                }
+                backoffMs = Math.min(MAX_BACKOFF_MS, Math.max(100, backoffMs * 2));
+                log.warn("Could not write {} audit records, retrying in {} ms", batch.size(), backoffMs, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+            } catch (RuntimeException e) {
+                // Un lote que nunca podrá escribirse no debe detener el hilo
+                log.error("Discarding {} audit records that could not be written", batch.size(), e);
+                queue.recordDropped(batch, "could not be written");
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (AuditRecord record : batch) {
+            rows.add(new Object[]{Timestamp.from(record.occurredAt()), record.entity(), record.entityId(),
+                    record.action().name(), toJson(record.before()), toJson(record.after())});
+        }
+        batchTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+        written.increment(batch.size());
+        Instant now = Instant.now();
+        for (AuditRecord record : batch) {
+            lag.record(Duration.between(record.occurredAt(), now));
+        }
+    }
+
+    private String toJson(Object state) {
+        if (state == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize audit state " + state, e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.hospital.audit;
+
+/**
+ * What {@link AuditQueue} does with a new record when it is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait for the writer to free space: the write path slows down to the pace of the audit inserts. A record is
+     * only dropped, logged and counted, if no space is freed within {@code hospital.audit.block-timeout-ms}.
+     * The default.
+     */
+    BLOCK,
+
+    /** Discard the record immediately, logging and counting it; the write path never waits. Opt-in. */
+    DROP
+}
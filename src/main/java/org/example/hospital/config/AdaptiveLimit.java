@@ -0,0 +1,128 @@
+package org.example.hospital.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows latency, in the style of Netflix's gradient limiter.
+ * <p>
+ * Latencies are averaged over short windows and compared with a slow moving average of past windows. While the
+ * two agree the limit grows by about its square root per window; when the short-term latency rises (requests are
+ * queueing somewhere, e.g. for a database connection) it shrinks in proportion, down to half per window. Windows
+ * with less than half of the limit in use leave it unchanged: low latency at low load says nothing about how
+ * much more would fit.
+ */
+public class AdaptiveLimit {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int WINDOW_MIN_SAMPLES = 10;
+    // Peso de cada ventana en la media larga y en el límite nuevo
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    // Latencia a corto plazo tolerada sobre la media larga antes de reducir
+    private static final double TOLERANCE = 1.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Estado de la ventana y de las medias; protegido por el monitor de la instancia
+    private double estimatedLimit;
+    private double longRttNanos;
+    private volatile double lastRttNanos;
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= min-limit <= max-limit, got " + minLimit + " and " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return true with a slot taken, to be given back with {@link #release}; false if the limit is reached.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot taken by {@link #tryAcquire()}.
+     * @param rttNanos How long the request held it.
+     * @param sample false to leave the latency out, e.g. for failed or streaming requests.
+     */
+    public void release(long rttNanos, boolean sample) {
+        int before = inFlight.getAndDecrement();
+        if (sample) {
+            record(rttNanos, before);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Average latency of the last complete window, in seconds (0 before the first one).
+     */
+    public double getLatencySeconds() {
+        return lastRttNanos / 1e9;
+    }
+
+    /**
+     * @return Seconds a rejected client should wait: about one request latency, at least 1.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(lastRttNanos / 1e9));
+    }
+
+    private synchronized void record(long rttNanos, int inFlightAtEnd) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtEnd);
+        long now = System.nanoTime();
+        if (windowSamples < WINDOW_MIN_SAMPLES || now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        lastRttNanos = shortRtt;
+
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + (shortRtt - longRttNanos) * LONG_RTT_SMOOTHING;
+        if (longRttNanos > shortRtt * 2) {
+            // Tras una sobrecarga la media larga queda inflada: que baje más rápido que el suavizado normal
+            longRttNanos *= 0.95;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRtt));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit + (target - estimatedLimit) * LIMIT_SMOOTHING));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.hospital.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.hospital.config.AdmissionControlFilter.EndpointClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Admission control (see {@link AdmissionControlFilter}), on unless {@code hospital.admission.enabled=false}.
+ * Each endpoint class takes {@code hospital.admission.<class>.initial-limit}, {@code min-limit} and {@code max-limit}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hospital.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(Environment environment, MeterRegistry registry) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        Map<EndpointClass, AdaptiveLimit> limits = new EnumMap<>(EndpointClass.class);
+        limits.put(EndpointClass.POINT, limit(environment, EndpointClass.POINT, 50, 400));
+        limits.put(EndpointClass.STANDARD, limit(environment, EndpointClass.STANDARD, 20, 100));
+        // Por debajo del pool: siempre quedan conexiones para las consultas por ID
+        limits.put(EndpointClass.EXPENSIVE, limit(environment, EndpointClass.EXPENSIVE,
+                Math.max(1, poolSize / 2), Math.max(1, poolSize - 2)));
+        return new AdmissionControlFilter(limits, registry);
+    }
+
+    private static AdaptiveLimit limit(Environment environment, EndpointClass endpointClass, int initial, int max) {
+        String prefix = "hospital.admission." + endpointClass.name().toLowerCase(Locale.ROOT) + ".";
+        return new AdaptiveLimit(
+                environment.getProperty(prefix + "initial-limit", Integer.class, initial),
+                environment.getProperty(prefix + "min-limit", Integer.class, 1),
+                environment.getProperty(prefix + "max-limit", Integer.class, max));
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.hospital.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control: each class of endpoint has its own {@link AdaptiveLimit} on concurrent requests, and a
+ * request over its class's limit is rejected at once with 503 and {@code Retry-After} instead of queueing for a
+ * database connection.
+ * <p>
+ * The classes are separate lanes. A burst of reports or full listings can only fill the expensive lane, whose
+ * maximum is kept below the connection pool size, so point lookups by ID still find a free slot and connection.
+ * Streaming responses hold their slot until the stream ends but do not feed the latency estimate.
+ * Actuator endpoints are never limited.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * What an endpoint costs, from the request alone.
+     */
+    public enum EndpointClass {
+        /** A single patient or staff member by ID. */
+        POINT,
+        /** Pages, searches, writes and the in-memory lookups. */
+        STANDARD,
+        /** Stats, above-average listings, full (unpaged) listings and streams, bulk imports. */
+        EXPENSIVE
+    }
+
+    private static final Pattern BY_ID = Pattern.compile("/(patients|staff)/\\d+");
+
+    private final Map<EndpointClass, Lane> lanes = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlFilter(Map<EndpointClass, AdaptiveLimit> limits, MeterRegistry registry) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdaptiveLimit limit = limits.get(endpointClass);
+            String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("hospital.admission.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Current concurrency limit of the endpoint class")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("hospital.admission.in-flight", limit, AdaptiveLimit::getInFlight)
+                    .description("Requests of the endpoint class being processed")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("hospital.admission.latency", limit, AdaptiveLimit::getLatencySeconds)
+                    .description("Average latency of the last window the limit was computed from")
+                    .tag("class", tag)
+                    .baseUnit("seconds")
+                    .register(registry);
+            lanes.put(endpointClass, new Lane(limit,
+                    admissions(registry, tag, "accepted"), admissions(registry, tag, "rejected")));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return path(request).startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Lane lane = lanes.get(classify(request.getMethod(), path(request), request.getQueryString()));
+        if (!lane.limit.tryAcquire()) {
+            lane.rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(lane.limit.retryAfterSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy, retry later");
+            return;
+        }
+        lane.accepted.increment();
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Respuesta en streaming: el hueco se libera al terminar, sin contar su duración como latencia
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        lane.limit.release(System.nanoTime() - start, false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                lane.limit.release(System.nanoTime() - start, completed && response.getStatus() < 500);
+            }
+        }
+    }
+
+    /**
+     * @param method HTTP method.
+     * @param path Request path without the context path.
+     * @param query Query string, or null. Only the query is looked at: reading parameters could consume a form body.
+     * @return The endpoint class the request is admitted under.
+     */
+    static EndpointClass classify(String method, String path, String query) {
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        if (read && BY_ID.matcher(path).matches()) {
+            return EndpointClass.POINT;
+        }
+        boolean paged = hasParameter(query, "after") || hasParameter(query, "limit");
+        if ((read && (path.startsWith("/patients/stats/") || path.equals("/patients/above-avg-bill")
+                || (!paged && (path.equals("/patients") || path.equals("/staff")))))
+                || (method.equals("POST") && path.equals("/patients/bulk"))) {
+            return EndpointClass.EXPENSIVE;
+        }
+        return EndpointClass.STANDARD;
+    }
+
+    private static boolean hasParameter(String query, String name) {
+        if (query == null) {
+            return false;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.equals(name) || parameter.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Counter admissions(MeterRegistry registry, String endpointClass, String outcome) {
+        return Counter.builder("hospital.admission.requests")
+                .description("Requests admitted or rejected by admission control")
+                .tag("class", endpointClass)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record Lane(AdaptiveLimit limit, Counter accepted, Counter rejected) {
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.hospital.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+/**
+ * {@code application/cbor} responses (and request bodies) for clients that ask for them with {@code Accept};
+ * everyone else keeps getting JSON.
+ */
+@Configuration
+public class CborConfig {
+
+    /**
+     * Replaces Spring MVC's default CBOR converter, whose mapper ignores the application's Jackson setup, with
+     * one built like the JSON ObjectMapper: same {@code spring.jackson.*} settings, modules and
+     * {@code @JsonComponent} serializers, so both formats carry the same fields.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.hospital.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override of the read replica routing: while it is set, read-only transactions are served by the
+ * primary like any other, e.g. for reads that must see the caller's own writes or must not lag behind the change
+ * events replayed onto an in-memory copy. Has no effect when no replicas are configured.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * @return Whether read-only transactions started on this thread must use the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY.get() != null;
+    }
+
+    /**
+     * Runs {@code action} with every read on the primary.
+     */
+    public static <E extends Exception> void onPrimary(Action<E> action) throws E {
+        run(true, action);
+    }
+
+    /**
+     * @return The value computed by {@code query} with every read on the primary.
+     */
+    public static <T> T fromPrimary(Supplier<T> query) {
+        boolean previous = require(true);
+        try {
+            return query.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs {@code action} with the given routing, e.g. the one captured from the request thread by an
+     * asynchronous response. With {@code primary} false the current routing is kept.
+     */
+    public static <E extends Exception> void run(boolean primary, Action<E> action) throws E {
+        boolean previous = require(primary);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * @return The previous value, to hand to {@link #restore}.
+     */
+    static boolean require(boolean primary) {
+        boolean previous = isPrimaryRequired();
+        if (primary) {
+            PRIMARY.set(Boolean.TRUE);
+        }
+        return previous;
+    }
+
+    static void restore(boolean previous) {
+        if (!previous) {
+            PRIMARY.remove();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.hospital.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Keeps read-your-writes consistency for clients while reads go to replicas.
+ * <p>
+ * Requests that may write (anything but GET, HEAD and OPTIONS) run entirely on the primary and set the
+ * {@value #COOKIE} cookie; until it expires, that client's reads stay on the primary too, so it never reads
+ * from a replica that has not replayed its write yet. The window covers the replica lag bound plus the time
+ * between lag checks. Clients without cookies can send {@code X-Read-Consistency: primary} instead.
+ */
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+    public static final String CONSISTENCY_HEADER = "X-Read-Consistency";
+    public static final String COOKIE = "read-primary-until";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration window;
+
+    public ReadRoutingFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            // Se fija antes de procesar: la respuesta puede estar ya confirmada al volver de la cadena
+            long until = System.currentTimeMillis() + window.toMillis();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(until))
+                    .path("/").maxAge(window.plusSeconds(1)).httpOnly(true).sameSite("Lax").build().toString());
+        }
+        boolean primary = write || "primary".equalsIgnoreCase(request.getHeader(CONSISTENCY_HEADER))
+                || recentlyWrote(request);
+        boolean previous = ReadRouting.require(primary);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    // Se comprueba el valor además de la caducidad: no todos los clientes HTTP respetan Max-Age
+    private static boolean recentlyWrote(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
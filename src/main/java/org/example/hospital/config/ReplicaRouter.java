@@ -0,0 +1,214 @@
+package org.example.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the primary and replica connection pools and decides where each read-only transaction runs.
+ * <p>
+ * Every replica's replication lag is checked on a fixed delay, on a thread of its own so long scheduled jobs
+ * (e.g. statistics rebuilds) cannot hold back the checks; replicas that are unreachable or further behind
+ * than {@code maxLag} are left out until they catch up. Read-only connections are handed out round-robin over
+ * the remaining replicas, and come from the primary when none is left or {@link ReadRouting} requires it.
+ * Exposes {@code hospital.db.reads} (connections per target) and {@code hospital.db.replica.lag} (seconds, NaN
+ * while unreachable).
+ */
+public class ReplicaRouter implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    // Un servidor que no está en recuperación no es una réplica en streaming (p. ej. una copia local de pruebas):
+    // no puede ir por detrás. Si ya reprodujo el WAL hasta la posición del primario, tampoco.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 'Infinity')
+            END::float8""";
+
+    private final HikariDataSource primary;
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+    private final DataSource readOnlyDataSource = new ReadOnlyDataSource();
+    // Réplicas dentro del límite de retraso en la última comprobación
+    private volatile Replica[] eligible = new Replica[0];
+
+    public ReplicaRouter(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                         Duration checkInterval, MeterRegistry registry) {
+        this.primary = primary;
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+        this.primaryReads = readCounter(registry, primary.getPoolName());
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource, readCounter(registry, dataSource.getPoolName()));
+            Gauge.builder("hospital.db.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag of the read replica at the last check")
+                    .baseUnit("seconds")
+                    .tag("replica", dataSource.getPoolName())
+                    .register(registry);
+            this.replicas.add(replica);
+        }
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    /**
+     * @return The DataSource for read-only transactions: a replica within the lag bound, or the primary.
+     */
+    public DataSource readOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measures every replica's lag and updates the set that may serve reads.
+     */
+    void checkReplicas() {
+        String primaryLsn;
+        try {
+            primaryLsn = primaryJdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        } catch (RuntimeException e) {
+            primaryLsn = null; // Sin posición del primario, solo cuenta la hora de la última transacción reproducida
+        }
+        List<Replica> fresh = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            double lag = measureLag(replica, primaryLsn);
+            boolean wasEligible = replica.lagSeconds <= maxLagSeconds;
+            replica.lagSeconds = lag;
+            if (lag <= maxLagSeconds) {
+                fresh.add(replica);
+            } else if (wasEligible) {
+                log.warn("Read replica {} is {} s behind (limit {} s); its reads go elsewhere until it catches up",
+                        replica.name(), lag, maxLagSeconds);
+            }
+        }
+        eligible = fresh.toArray(Replica[]::new);
+    }
+
+    @Override
+    public void destroy() {
+        checker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private double measureLag(Replica replica, String primaryLsn) {
+        try {
+            Double lag = replica.jdbcTemplate.queryForObject(LAG_SQL, Double.class, primaryLsn);
+            return lag == null ? Double.NaN : lag;
+        } catch (RuntimeException e) {
+            // Cualquier fallo cuenta como caída: una excepción sin capturar cancelaría las comprobaciones siguientes
+            return Double.NaN;
+        }
+    }
+
+    private Replica pick() {
+        Replica[] candidates = eligible;
+        if (candidates.length == 0 || ReadRouting.isPrimaryRequired()) {
+            return null;
+        }
+        return candidates[Math.floorMod(next.getAndIncrement(), candidates.length)];
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String target) {
+        return Counter.builder("hospital.db.reads")
+                .description("Connections handed out for read-only transactions")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    private static final class Replica {
+
+        final HikariDataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        final Counter reads;
+        // NaN hasta la primera comprobación o mientras no responde: nunca cumple el límite
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(HikariDataSource dataSource, Counter reads) {
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.reads = reads;
+        }
+
+        String name() {
+            return dataSource.getPoolName();
+        }
+    }
+
+    /**
+     * Opens a connection from one of the pools, with or without explicit credentials.
+     */
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connect(DataSource::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return connect(dataSource -> dataSource.getConnection(username, password));
+        }
+
+        private Connection connect(Connector connector) throws SQLException {
+            Replica replica = pick();
+            if (replica != null) {
+                try {
+                    Connection connection = connector.connect(replica.dataSource);
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLFeatureNotSupportedException e) {
+                    throw e; // El pool no admite la llamada: el primario tampoco, no es una caída
+                } catch (SQLException e) {
+                    // Caída entre dos comprobaciones: se sirve desde el primario y la siguiente la excluye
+                    log.warn("Read replica {} unavailable, reading from the primary: {}", replica.name(), e.getMessage());
+                }
+            }
+            Connection connection = connector.connect(primary);
+            primaryReads.increment();
+            return connection;
+        }
+    }
+}
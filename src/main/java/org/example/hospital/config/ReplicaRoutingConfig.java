@@ -0,0 +1,73 @@
+package org.example.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica mode, switched on by listing replica JDBC URLs in {@code hospital.datasource.replica-urls}.
+ * <p>
+ * The application DataSource becomes a {@link LazyConnectionDataSourceProxy} that only fetches a physical
+ * connection at the first statement, once the transaction's read-only flag is known: read-only transactions
+ * (repository finders, the custom queries in {@code PatientRepositoryImpl}, NDJSON streams) go to a replica
+ * picked by {@link ReplicaRouter}, everything else (writes, Flyway, non-transactional JDBC) to the primary.
+ * {@link ReadRoutingFilter} keeps write requests and the reads that follow them on the primary.
+ * <p>
+ * Replica pools use the primary's credentials and {@code spring.datasource.hikari.*} settings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hospital.datasource.replica-urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRouter replicaRouter(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                       @Value("${hospital.datasource.replica-urls}") List<String> replicaUrls,
+                                       @Value("${hospital.datasource.replica-max-lag:5s}") Duration maxLag,
+                                       @Value("${hospital.datasource.replica-check-interval-ms:1000}") long checkIntervalMs,
+                                       @Value("${hospital.datasource.replica-connection-timeout-ms:1000}") long connectionTimeoutMs) {
+        HikariDataSource primary = pool(properties, environment, registry, properties.determineUrl(), "primary");
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (String url : replicaUrls) {
+            HikariDataSource replica = pool(properties, environment, registry, url.strip(), "replica-" + (replicas.size() + 1));
+            // Una réplica caída no debe retener la petición: se cae al primario enseguida
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replicas.add(replica);
+        }
+        return new ReplicaRouter(primary, replicas, maxLag, Duration.ofMillis(checkIntervalMs), registry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRouter.primary());
+        dataSource.setReadOnlyDataSource(replicaRouter.readOnlyDataSource());
+        return dataSource;
+    }
+
+    @Bean
+    public ReadRoutingFilter readRoutingFilter(@Value("${hospital.datasource.replica-max-lag:5s}") Duration maxLag,
+                                               @Value("${hospital.datasource.replica-check-interval-ms:1000}") long checkIntervalMs) {
+        return new ReadRoutingFilter(maxLag.plusMillis(checkIntervalMs));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                         String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricRegistry(registry);
+        return pool;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.hospital.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Start-up options used by the {@code fast-startup} profile (see {@code application-fast-startup.properties}).
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * With {@code spring.main.lazy-initialization=true}, keeps eager the beans whose start-up callbacks only run
+     * for singletons created during the refresh: {@code @Scheduled} methods, {@link SmartInitializingSingleton}
+     * (e.g. the PatientQuery validation) and {@link SmartLifecycle}. Made lazy, they would silently never run.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupCallbacks() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (SmartInitializingSingleton.class.isAssignableFrom(beanType)
+                || SmartLifecycle.class.isAssignableFrom(beanType)
+                || hasScheduledMethods(beanType));
+    }
+
+    /**
+     * With {@code hospital.flyway.validate-only=true}, the application only checks that every migration has been
+     * applied and fails to start otherwise; applying them is left to the deploy step, so instances started
+     * during a rolling deploy never run DDL.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "hospital.flyway.validate-only", havingValue = "true")
+    public FlywayMigrationStrategy validateOnlyMigrationStrategy() {
+        return Flyway::validate;
+    }
+
+    private static boolean hasScheduledMethods(Class<?> type) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(type, method -> found.set(true), method -> !found.get()
+                && (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(method, Schedules.class)));
+        return found.get();
+    }
+}
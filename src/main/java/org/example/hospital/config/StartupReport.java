@@ -0,0 +1,103 @@
+package org.example.hospital.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where boot time went once the application is ready, enabled with {@code hospital.startup.report=true}.
+ * <p>
+ * Reads the steps recorded by the {@link BufferingApplicationStartup} installed in {@code main} (the same data as
+ * {@code /actuator/startup}) and lists the slowest ones by their own time, i.e. excluding nested steps, so an
+ * expensive bean is not hidden behind the beans that depend on it. Also shows the time before the context
+ * started (JVM and class loading) and the time spent in {@link ApplicationReadyEvent} listeners such as the
+ * statistics warm-ups.
+ */
+@Component
+@ConditionalOnProperty(name = "hospital.startup.report", havingValue = "true")
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private final int top;
+    private volatile ApplicationReadyEvent ready;
+
+    public StartupReport(@Value("${hospital.startup.report.top:15}") int top) {
+        this.top = top;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        ready = event;
+    }
+
+    /**
+     * Boot reports readiness right after every {@link ApplicationReadyEvent} listener has returned.
+     */
+    @EventListener
+    public void onAcceptingTraffic(AvailabilityChangeEvent<ReadinessState> change) {
+        ApplicationReadyEvent event = ready;
+        if (change.getState() != ReadinessState.ACCEPTING_TRAFFIC || event == null) {
+            return;
+        }
+        ready = null;
+        long listenersMs = System.currentTimeMillis() - event.getTimestamp();
+        long readyMs = event.getTimeTaken().toMillis();
+        long beforeRunMs = Math.max(0, ManagementFactory.getRuntimeMXBean().getUptime() - listenersMs - readyMs);
+        StringBuilder report = new StringBuilder(String.format(
+                "Startup: %d ms of JVM start-up before SpringApplication.run, %d ms to ready,"
+                        + " %d ms in ApplicationReadyEvent listeners", beforeRunMs, readyMs, listenersMs));
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            log.info(report.append("; no step timeline recorded").toString());
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        // Tiempo propio = duración del paso menos la de sus hijos directos
+        Map<Long, Long> childrenNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent step : events) {
+            Long parent = step.getStartupStep().getParentId();
+            if (parent != null) {
+                childrenNanos.merge(parent, step.getDuration().toNanos(), Long::sum);
+            }
+        }
+        Map<String, Long> ownNanos = events.stream().collect(Collectors.toMap(
+                StartupReport::label,
+                step -> step.getDuration().toNanos() - childrenNanos.getOrDefault(step.getStartupStep().getId(), 0L),
+                Long::sum));
+        report.append(". Slowest steps by own time:");
+        ownNanos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .forEach(entry -> report.append(String.format("%n  %7d ms  %s", entry.getValue() / 1_000_000, entry.getKey())));
+        log.info(report.toString());
+    }
+
+    private static String label(StartupTimeline.TimelineEvent event) {
+        StartupStep step = event.getStartupStep();
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return "bean " + tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
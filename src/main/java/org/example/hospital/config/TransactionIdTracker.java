@@ -0,0 +1,106 @@
+package org.example.hospital.config;
+
+import org.example.hospital.event.CommittedTransaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the PostgreSQL ID of each committed read-write transaction that changed rows, for the change events
+ * published right after it (see {@link CommittedTransaction}).
+ * <p>
+ * Hibernate's inserts, updates and deletes are noticed by a statement inspector; plain JDBC writes that are
+ * published as events call {@link #markWrite()}. Just before such a transaction commits, pending entity changes
+ * are flushed and the ID is read with {@code txid_current_if_assigned()}: one extra round trip per committed
+ * write, none for read-only transactions or for read-write ones that only read.
+ */
+@Component
+public class TransactionIdTracker implements TransactionExecutionListener, HibernatePropertiesCustomizer {
+
+    private static final String CURRENT_TXID_SQL = "SELECT txid_current_if_assigned()";
+
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+    private static final ThreadLocal<Long> COMMITTING = new ThreadLocal<>();
+
+    // Perezoso: el JdbcTemplate depende del DataSource, que no hace falta al crear el gestor de transacciones
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public TransactionIdTracker(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Notes that the current transaction changed rows outside Hibernate, so its ID is recorded at commit.
+     */
+    public static void markWrite() {
+        WROTE.set(Boolean.TRUE);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) TransactionIdTracker::inspect);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (isTracked(transaction)) {
+            WROTE.remove();
+        }
+    }
+
+    @Override
+    public void beforeCommit(TransactionExecution transaction) {
+        if (!isTracked(transaction)) {
+            return;
+        }
+        if (transaction instanceof TransactionStatus status) {
+            status.flush(); // Hibernate escribe al hacer flush: sin él, un UPDATE pendiente aún no tendría ID
+        }
+        if (WROTE.get() != null) {
+            COMMITTING.set(jdbcTemplate.getObject().queryForObject(CURRENT_TXID_SQL, Long.class));
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (isTracked(transaction)) {
+            Long id = COMMITTING.get();
+            CommittedTransaction.setLastId(commitFailure == null && id != null ? id : CommittedTransaction.UNKNOWN);
+            clear();
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        if (isTracked(transaction)) {
+            clear();
+        }
+    }
+
+    private static boolean isTracked(TransactionExecution transaction) {
+        return transaction.isNewTransaction() && !transaction.isNested() && !transaction.isReadOnly();
+    }
+
+    private static void clear() {
+        WROTE.remove();
+        COMMITTING.remove();
+    }
+
+    private static String inspect(String sql) {
+        String verb = sql.stripLeading();
+        verb = verb.substring(0, Math.min(6, verb.length())).toLowerCase(Locale.ROOT);
+        if (verb.equals("insert") || verb.equals("update") || verb.equals("delete")) {
+            WROTE.set(Boolean.TRUE);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.hospital.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual-thread request execution mode, switched on with {@code spring.threads.virtual.enabled=true}
+ * (requires Java 21+; on older runtimes Spring Boot ignores the flag and keeps platform threads, and so does
+ * this configuration: the permits are only needed when requests run on virtual threads).
+ * <p>
+ * Spring Boot then runs Tomcat requests, async/streaming responses and scheduled tasks on virtual threads.
+ * This configuration adds the missing back-pressure: the DataSource is wrapped in a
+ * {@link ConnectionPermitDataSource} so an unbounded number of virtual threads cannot flood the database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@ConditionalOnJava(JavaVersion.TWENTY_ONE)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPermitDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionPermitDataSource)) {
+                    int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                    return new ConnectionPermitDataSource(dataSource,
+                            environment.getProperty("hospital.db.max-concurrent", Integer.class, poolSize),
+                            environment.getProperty("hospital.db.max-waiting", Integer.class, 200),
+                            environment.getProperty("hospital.db.acquire-timeout-ms", Long.class, 2000L));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Exposes permit usage as {@code hospital.db.permits.waiting} and {@code hospital.db.permits.available}.
+     */
+    @Bean
+    public MeterBinder connectionPermitMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionPermitDataSource permits) {
+                Gauge.builder("hospital.db.permits.waiting", permits, ConnectionPermitDataSource::getWaiting)
+                        .description("Callers waiting for a database connection permit")
+                        .register(registry);
+                Gauge.builder("hospital.db.permits.available", permits, ConnectionPermitDataSource::getAvailablePermits)
+                        .description("Database connection permits currently free")
+                        .register(registry);
+            }
+        };
+    }
+}
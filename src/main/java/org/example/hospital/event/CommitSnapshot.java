@@ -0,0 +1,57 @@
+package org.example.hospital.event;
+
+import java.util.Arrays;
+
+/**
+ * Which transactions were committed as seen by one database read: PostgreSQL's {@code txid_current_snapshot()},
+ * i.e. every transaction below {@code xmin}, plus those below {@code xmax} that were not still in progress.
+ * <p>
+ * State loaded by that read already contains the changes of those transactions. Their events can still arrive
+ * later (they are published after the commit, from another thread), so a listener replaying changes onto the
+ * loaded state skips the events {@link #includes included} here instead of applying them twice.
+ */
+public final class CommitSnapshot {
+
+    private final long xmin;
+    private final long xmax;
+    private final long[] inProgress;
+
+    private CommitSnapshot(long xmin, long xmax, long[] inProgress) {
+        this.xmin = xmin;
+        this.xmax = xmax;
+        this.inProgress = inProgress;
+    }
+
+    /**
+     * @param text A snapshot in PostgreSQL's text form, {@code xmin:xmax:xip1,xip2,...}.
+     */
+    public static CommitSnapshot parse(String text) {
+        String[] parts = text.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Not a PostgreSQL snapshot: " + text);
+        }
+        long[] inProgress = parts[2].isEmpty() ? new long[0]
+                : Arrays.stream(parts[2].split(",")).mapToLong(Long::parseLong).sorted().toArray();
+        return new CommitSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+    }
+
+    /**
+     * @param txid ID of a committed transaction, or {@link CommittedTransaction#UNKNOWN}.
+     * @return true if the read saw that transaction's changes; false for an unknown transaction.
+     */
+    public boolean includes(long txid) {
+        if (txid == CommittedTransaction.UNKNOWN || txid >= xmax) {
+            return false;
+        }
+        return txid < xmin || Arrays.binarySearch(inProgress, txid) < 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder().append(xmin).append(':').append(xmax).append(':');
+        for (int i = 0; i < inProgress.length; i++) {
+            text.append(i == 0 ? "" : ",").append(inProgress[i]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.hospital.event;
+
+/**
+ * PostgreSQL ID of the last read-write transaction committed on the current thread that changed any row.
+ * <p>
+ * Change events are published by the thread that made the change, right after its transaction commits, so the
+ * event factories take their {@code txid} from here; it is recorded by
+ * {@code org.example.hospital.config.TransactionIdTracker}. Compared with a {@link CommitSnapshot} it tells an
+ * in-memory copy loaded from the database whether the change is already part of it.
+ */
+public final class CommittedTransaction {
+
+    /** Transaction ID of a change whose transaction is not known; such a change is never assumed to be loaded. */
+    public static final long UNKNOWN = 0;
+
+    private static final ThreadLocal<Long> LAST = new ThreadLocal<>();
+
+    private CommittedTransaction() {
+    }
+
+    /**
+     * @return ID of the last read-write transaction committed on this thread, or {@link #UNKNOWN}.
+     */
+    public static long lastId() {
+        Long id = LAST.get();
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @param id ID of the transaction just committed on this thread, or {@link #UNKNOWN} if it wrote nothing.
+     */
+    public static void setLastId(long id) {
+        if (id == UNKNOWN) {
+            LAST.remove();
+        } else {
+            LAST.set(id);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.hospital.event;
+
+/**
+ * Published after a single patient is created, updated or deleted.
+ * @param before State before the change, or null for a creation.
+ * @param after State after the change, or null for a deletion.
+ * @param txid ID of the transaction that made the change (see {@link CommittedTransaction}).
+ */
+public record PatientChangedEvent(PatientSnapshot before, PatientSnapshot after, long txid) {
+
+    /**
+     * Factories for the thread that just committed the change: the transaction ID is taken from it.
+     */
+    public static PatientChangedEvent created(PatientSnapshot after) {
+        return new PatientChangedEvent(null, after, CommittedTransaction.lastId());
+    }
+
+    public static PatientChangedEvent updated(PatientSnapshot before, PatientSnapshot after) {
+        return new PatientChangedEvent(before, after, CommittedTransaction.lastId());
+    }
+
+    public static PatientChangedEvent deleted(PatientSnapshot before) {
+        return new PatientChangedEvent(before, null, CommittedTransaction.lastId());
+    }
+}
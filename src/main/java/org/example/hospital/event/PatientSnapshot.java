@@ -0,0 +1,23 @@
+package org.example.hospital.event;
+
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+
+/**
+ * Immutable copy of a patient's state at one point in time, taken so listeners can compare
+ * before/after values even though the entity itself is mutated in place.
+ */
+public record PatientSnapshot(Long id, String name, String diagnosis, Money billAmount,
+                              Long doctorId, String department) {
+
+    /**
+     * @param patient The patient to copy; its assigned doctor must be fully loaded for the department to be set.
+     */
+    public static PatientSnapshot of(Patient patient) {
+        Staff doctor = patient.getAssignedDoctor();
+        return new PatientSnapshot(patient.getId(), patient.getName(), patient.getDiagnosis(), patient.getBillAmount(),
+                doctor != null ? doctor.getId() : null,
+                doctor != null ? doctor.getDepartment() : null);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.hospital.event;
+
+/**
+ * Published after a set-based write touched many patients at once (bulk import, bulk update),
+ * where per-row before/after state is not available. Listeners should rebuild from the database.
+ * @param rows Number of rows affected.
+ */
+public record PatientsBulkChangedEvent(long rows) {
+}
@@ -0,0 +1,21 @@
+package org.example.hospital.event;
+
+import org.example.hospital.model.PatientReassignment;
+
+/**
+ * Published after every patient of one doctor was moved to another in a single set-based update.
+ * Carries the aggregate of the moved bills so per-department figures can be shifted without a reload.
+ * @param from The doctor the patients were assigned to.
+ * @param to The doctor they are assigned to now.
+ * @param moved What was moved.
+ * @param txid ID of the transaction that moved them (see {@link CommittedTransaction}).
+ */
+public record PatientsReassignedEvent(StaffSnapshot from, StaffSnapshot to, PatientReassignment moved, long txid) {
+
+    /**
+     * For the thread that just committed the reassignment: the transaction ID is taken from it.
+     */
+    public static PatientsReassignedEvent of(StaffSnapshot from, StaffSnapshot to, PatientReassignment moved) {
+        return new PatientsReassignedEvent(from, to, moved, CommittedTransaction.lastId());
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.hospital.event;
+
+/**
+ * Published after a single staff member is created, updated or deleted.
+ * @param before State before the change, or null for a creation.
+ * @param after State after the change, or null for a deletion.
+ * @param txid ID of the transaction that made the change (see {@link CommittedTransaction}).
+ */
+public record StaffChangedEvent(StaffSnapshot before, StaffSnapshot after, long txid) {
+
+    /**
+     * Factories for the thread that just committed the change: the transaction ID is taken from it.
+     */
+    public static StaffChangedEvent created(StaffSnapshot after) {
+        return new StaffChangedEvent(null, after, CommittedTransaction.lastId());
+    }
+
+    public static StaffChangedEvent updated(StaffSnapshot before, StaffSnapshot after) {
+        return new StaffChangedEvent(before, after, CommittedTransaction.lastId());
+    }
+
+    public static StaffChangedEvent deleted(StaffSnapshot before) {
+        return new StaffChangedEvent(before, null, CommittedTransaction.lastId());
+    }
+}
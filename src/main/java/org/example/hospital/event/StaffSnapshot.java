@@ -0,0 +1,14 @@
+package org.example.hospital.event;
+
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+
+/**
+ * Immutable copy of a staff member's state at one point in time.
+ */
+public record StaffSnapshot(Long id, String name, Role role, String department) {
+
+    public static StaffSnapshot of(Staff staff) {
+        return new StaffSnapshot(staff.getId(), staff.getName(), staff.getRole(), staff.getDepartment());
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.hospital.event;
+
+/**
+ * Published after an in-memory statistic that had gone stale was rebuilt in the background. No data changed,
+ * but responses computed from the stale copy meanwhile are outdated now, so their tags must be renewed.
+ * @param name What was rebuilt.
+ */
+public record StatsRefreshedEvent(String name) {
+}
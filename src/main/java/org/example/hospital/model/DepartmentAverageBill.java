@@ -0,0 +1,9 @@
+package org.example.hospital.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection row of {@code AVERAGE_BILL_PER_DEPARTMENT}.
+ */
+public record DepartmentAverageBill(String department, BigDecimal averageBill) {
+}
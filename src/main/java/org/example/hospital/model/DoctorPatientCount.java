@@ -0,0 +1,7 @@
+package org.example.hospital.model;
+
+/**
+ * Projection row of {@code DOCTORS_WITH_PATIENT_COUNT}.
+ */
+public record DoctorPatientCount(Long doctorId, String doctorName, long patientCount) {
+}
@@ -0,0 +1,170 @@
+package org.example.hospital.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Fixed-point amount of money: a whole number of minor units (cents) of a currency.
+ * <p>
+ * Replaces {@code BigDecimal} for bills, so holding, comparing and adding amounts needs no arbitrary-precision
+ * arithmetic and a loaded patient carries one small object instead of a BigDecimal and its digits.
+ * Amounts stored in the database are in {@link #DEFAULT_CURRENCY}, with two decimals like {@code bill_amount}.
+ * In JSON an amount is a plain number with the currency's decimals, e.g. {@code 800.50}.
+ * @param minorUnits Amount in minor units, e.g. 80050 for 800.50 EUR.
+ * @param currency Currency of the amount.
+ */
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    /** Currency of every amount stored in the database ({@code bill_amount} has no currency column). */
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("EUR");
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+        if (currency.getDefaultFractionDigits() < 0 || currency.getDefaultFractionDigits() >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported currency " + currency);
+        }
+    }
+
+    /**
+     * @return {@code minorUnits} of the default currency.
+     */
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * @param amount Amount in major units of the default currency; extra decimals are rounded half up,
+     * as the {@code numeric(38,2)} column does.
+     * @return The amount, or null for null.
+     * @throws ArithmeticException If it does not fit in a long of minor units.
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return ofMinor(amount.setScale(DEFAULT_CURRENCY.getDefaultFractionDigits(), RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a plain decimal ({@code -}, digits, optionally {@code .} and digits) in the default currency
+     * without going through BigDecimal; extra decimals are rounded half up.
+     * @return The amount, or null if the text is not a plain decimal or is too large for the fast path.
+     */
+    static Money parse(char[] text, int offset, int length) {
+        int digits = DEFAULT_CURRENCY.getDefaultFractionDigits();
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && text[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        int integerDigits = 0;
+        for (; i < end && text[i] != '.'; i++, integerDigits++) {
+            char c = text[i];
+            if (c < '0' || c > '9' || integerDigits >= 15) {
+                return null; // Exponente, otro carácter o demasiados dígitos: que lo resuelva BigDecimal
+            }
+            value = value * 10 + (c - '0');
+        }
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end) {
+            i++; // '.'
+            for (; i < end; i++, fractionDigits++) {
+                char c = text[i];
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                if (fractionDigits < digits) {
+                    value = value * 10 + (c - '0');
+                } else if (fractionDigits == digits) {
+                    roundUp = c >= '5';
+                }
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            return null;
+        }
+        for (int f = fractionDigits; f < digits; f++) {
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        return ofMinor(negative ? -value : value);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return compareTo(other) > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    /**
+     * @return The amount as a plain decimal with the currency's decimals, e.g. {@code 800.50}.
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Appends {@link #toString()} to {@code out} without creating an intermediate String.
+     * @return {@code out}.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits == 0) {
+            return out.append(minorUnits);
+        }
+        if (minorUnits == Long.MIN_VALUE) {
+            return out.append(toBigDecimal().toPlainString());
+        }
+        long abs = Math.abs(minorUnits);
+        long unit = POWERS_OF_TEN[digits];
+        if (minorUnits < 0) {
+            out.append('-');
+        }
+        out.append(abs / unit).append('.');
+        long fraction = abs % unit;
+        for (long limit = unit / 10; limit > 1 && fraction < limit; limit /= 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.hospital.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Money} attributes to {@code numeric} columns in the default currency.
+ * Marked immutable so Hibernate keeps the loaded Money as the dirty-checking snapshot instead of deep-copying
+ * it through the converter.
+ */
+@Converter(autoApply = true)
+@Immutable
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return Money.of(amount);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.hospital.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * JSON form of {@link Money}: a plain number in major units of the default currency, e.g. {@code 800.50}.
+ * Numbers are written and read from the token characters directly, without an intermediate BigDecimal.
+ * Binary formats get a decimal number (a CBOR decimal fraction) instead.
+ */
+public final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    /**
+     * Writes a non-null amount as a number, for hand-written serializers that bypass the registered one.
+     */
+    public static void write(Money value, JsonGenerator gen) throws IOException {
+        if (gen.canWriteFormattedNumbers()) {
+            gen.writeNumber(value.toString());
+        } else {
+            gen.writeNumber(value.toBigDecimal()); // Binarios (CBOR) escribirían el texto como cadena
+        }
+    }
+
+    public static class Serializer extends StdScalarSerializer<Money> {
+
+        public Serializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            write(value, gen);
+        }
+    }
+
+    /**
+     * Accepts a number or a numeric string. Extra decimals are rounded half up, like the database column.
+     */
+    public static class Deserializer extends StdScalarDeserializer<Money> {
+
+        public Deserializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+            }
+            Money money = Money.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            if (money != null) {
+                return money;
+            }
+            try {
+                // Exponente o importe muy grande: vía lenta con BigDecimal
+                return Money.of(token == JsonToken.VALUE_STRING
+                        ? new BigDecimal(p.getText().strip()) : p.getDecimalValue());
+            } catch (NumberFormatException | ArithmeticException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), "not a valid amount");
+            }
+        }
+    }
+}
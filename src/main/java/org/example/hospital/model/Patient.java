@@ -1,13 +1,15 @@
 package org.example.hospital.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Represents a patient in the hospital system.
  */
 @Entity
 @Table(name = "patients")
+@DynamicUpdate
 public class Patient {
 
     @Id
@@ -25,10 +27,10 @@ public class Patient {
     private String diagnosis;
 
     /**
-     * Total bill amount in euros.
+     * Total bill amount, in euros ({@link Money#DEFAULT_CURRENCY}).
      */
     @Column(name = "bill_amount")
-    private BigDecimal billAmount;
+    private Money billAmount;
 
     /**
      * The doctor assigned to the patient.
@@ -37,9 +39,17 @@ public class Patient {
     @JoinColumn(name = "assigned_doctor_id")
     private Staff assignedDoctor;
 
+    /**
+     * Optimistic-locking version, incremented by Hibernate on every update.
+     * Exposed to clients through the ETag header rather than the JSON body.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Patient() {}
 
-    public Patient(String name, String diagnosis, BigDecimal billAmount, Staff assignedDoctor) {
+    public Patient(String name, String diagnosis, Money billAmount, Staff assignedDoctor) {
         this.name = name;
         this.diagnosis = diagnosis;
         this.billAmount = billAmount;
@@ -72,11 +82,11 @@ public class Patient {
         this.diagnosis = diagnosis;
     }
 
-    public BigDecimal getBillAmount() {
+    public Money getBillAmount() {
         return billAmount;
     }
 
-    public void setBillAmount(BigDecimal billAmount) {
+    public void setBillAmount(Money billAmount) {
         this.billAmount = billAmount;
     }
 
@@ -87,4 +97,12 @@ public class Patient {
     public void setAssignedDoctor(Staff assignedDoctor) {
         this.assignedDoctor = assignedDoctor;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,13 @@
+package org.example.hospital.model;
+
+/**
+ * Projection row of {@code REASSIGN_PATIENTS}: what moved from one doctor to another.
+ * @param patients Number of patients reassigned.
+ * @param billTotal Sum of their bills, or null if none has a bill.
+ * @param billedPatients Number of them with a non-null bill.
+ * @param minBill Lowest of their bills, or null.
+ * @param maxBill Highest of their bills, or null.
+ */
+public record PatientReassignment(long patients, Money billTotal, long billedPatients,
+                                  Money minBill, Money maxBill) {
+}
@@ -1,6 +1,10 @@
 package org.example.hospital.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*; // Make sure this is imported
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.Objects; // Good practice to include for equals/hashCode, though not strictly required by JPA for basic functionality
 
 /**
@@ -8,6 +12,9 @@ import java.util.Objects; // Good practice to include for equals/hashCode, thoug
  */
 @Entity
 @Table(name = "staff") // Explicitly define table name
+@DynamicUpdate // UPDATE only the columns that actually changed
+@Cacheable // Only used when the Hibernate second-level cache is enabled in application.properties
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "staff-entity")
 public class Staff {
 
     @Id
@@ -33,6 +40,14 @@ public class Staff {
     @Column(nullable = false) // Add non-null constraint
     private String department;
 
+    /**
+     * Optimistic-locking version, incremented by Hibernate on every update.
+     * Exposed to clients through the ETag header rather than the JSON body.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // Default constructor for JPA
     public Staff() {
     }
@@ -78,6 +93,24 @@ public class Staff {
         this.department = department;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return A new, unmanaged instance with the same state, ID and version included.
+     */
+    public Staff copy() {
+        Staff copy = new Staff(name, role, department);
+        copy.setId(id);
+        copy.setVersion(version);
+        return copy;
+    }
+
     // It's highly recommended to override equals() and hashCode() for JPA entities.
     // This is a basic implementation, usually based on the ID.
     @Override
@@ -0,0 +1,114 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.event.CommitSnapshot;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.example.hospital.sql.PatientQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads whole tables through a forward-only JDBC cursor, handing each row to a consumer
+ * as soon as it is read so memory use does not depend on the table size.
+ */
+@Repository
+public class CursorStreamRepository {
+
+    private static final String STREAM_STAFF_SQL =
+            "SELECT id, name, role, department FROM staff ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SnapshotReader snapshotReader;
+
+    public CursorStreamRepository(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  SnapshotReader snapshotReader,
+                                  @Value("${hospital.stream.fetch-size:500}") int fetchSize) {
+        // Template propio para no alterar el fetch size del JdbcTemplate compartido.
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only honours the fetch size (server-side cursor) when autocommit is off,
+        // so every stream runs inside a read-only transaction.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.snapshotReader = snapshotReader;
+    }
+
+    /**
+     * Streams every patient, with its assigned doctor, ordered by ID.
+     * @param consumer Receives each patient as it is read from the cursor.
+     */
+    public void streamPatients(Consumer<Patient> consumer) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(PatientQuery.ALL_PATIENTS.getSql(), rs -> {
+                    consumer.accept(PatientRowMapper.INSTANCE.mapRow(rs, 0));
+                }));
+    }
+
+    /**
+     * Streams every patient whose bill is strictly greater than {@code threshold}, ordered by ID.
+     * @param threshold Bill amount to compare against.
+     * @param consumer Receives each patient as it is read from the cursor.
+     */
+    public void streamPatientsWithBillAbove(BigDecimal threshold, Consumer<Patient> consumer) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(PatientQuery.PATIENTS_WITH_BILL_ABOVE.getSql(), rs -> {
+                    consumer.accept(PatientRowMapper.INSTANCE.mapRow(rs, 0));
+                }, threshold));
+    }
+
+    /**
+     * Streams every non-null bill amount as whole cents, without hydrating any entity or BigDecimal.
+     * Always reads the primary, through {@link SnapshotReader}: the in-memory statistics built from it replay
+     * change events on top, which a lagging replica could be missing, and skip those the scan already saw.
+     * @param consumer Receives each amount as it is read from the cursor.
+     * @return The commits the scan saw.
+     */
+    public CommitSnapshot streamBillCents(LongConsumer consumer) {
+        return snapshotReader.read(() ->
+                jdbcTemplate.query(PatientQuery.ALL_BILL_CENTS.getSql(), rs -> {
+                    consumer.accept(rs.getLong(1));
+                }));
+    }
+
+    /**
+     * Streams the billing-relevant columns of every patient, ordered by ID.
+     * The snapshots carry no name; everything else is as in {@link PatientSnapshot#of}.
+     * Always reads the primary, like {@link #streamBillCents}.
+     * @param consumer Receives each patient as it is read from the cursor.
+     * @return The commits the scan saw.
+     */
+    public CommitSnapshot streamBillingFacts(Consumer<PatientSnapshot> consumer) {
+        return snapshotReader.read(() ->
+                jdbcTemplate.query(PatientQuery.ALL_BILLING_FACTS.getSql(), rs -> {
+                    Long billCents = rs.getObject(3, Long.class);
+                    Long doctorId = rs.getObject(4, Long.class);
+                    consumer.accept(new PatientSnapshot(rs.getLong(1), null, rs.getString(2),
+                            billCents == null ? null : Money.ofMinor(billCents), doctorId, rs.getString(5)));
+                }));
+    }
+
+    /**
+     * Streams every staff member ordered by ID.
+     * @param consumer Receives each staff member as it is read from the cursor.
+     */
+    public void streamStaff(Consumer<Staff> consumer) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(STREAM_STAFF_SQL, rs -> {
+                    Staff staff = new Staff(rs.getString("name"), Role.valueOf(rs.getString("role")), rs.getString("department"));
+                    staff.setId(rs.getLong("id"));
+                    consumer.accept(staff);
+                }));
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.model.Patient;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Bulk-loads patients with PostgreSQL {@code COPY ... FROM STDIN}, which avoids a round trip per row
+ * and leaves ID generation to the existing identity column.
+ * Each import runs in a single transaction: either every row is stored or none is.
+ */
+@Repository
+public class PatientBulkLoader {
+
+    private static final String COPY_CSV_SQL =
+            "COPY patients (name, diagnosis, bill_amount, assigned_doctor_id) " +
+                    "FROM STDIN WITH (FORMAT csv, HEADER %s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public PatientBulkLoader(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${hospital.bulk.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copies a CSV stream straight into the patients table.
+     * Columns, in order: name, diagnosis, bill_amount, assigned_doctor_id; the first line is a header.
+     * @param csv The CSV body; it is never fully buffered in memory.
+     * @return Number of rows inserted.
+     */
+    public long copyCsv(InputStream csv) {
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+                    try {
+                        return copyManager(con).copyIn(COPY_CSV_SQL.formatted("true"), csv);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    /**
+     * Copies patients into the table in chunks of {@code hospital.bulk.chunk-size} rows,
+     * so only one chunk is held in memory at a time.
+     * @param patients Patients to insert; IDs are ignored and the doctor is referenced by ID only.
+     * @return Number of rows inserted.
+     */
+    public long copyPatients(Iterator<Patient> patients) {
+        return transactionTemplate.execute(status -> {
+            long inserted = 0;
+            StringBuilder chunk = new StringBuilder();
+            int rowsInChunk = 0;
+            while (patients.hasNext()) {
+                appendCsvRow(chunk, patients.next());
+                if (++rowsInChunk == chunkSize) {
+                    inserted += copyChunk(chunk);
+                    chunk.setLength(0);
+                    rowsInChunk = 0;
+                }
+            }
+            if (rowsInChunk > 0) {
+                inserted += copyChunk(chunk);
+            }
+            return inserted;
+        });
+    }
+
+    private long copyChunk(CharSequence chunk) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try (Reader reader = new StringReader(chunk.toString())) {
+                return copyManager(con).copyIn(COPY_CSV_SQL.formatted("false"), reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static CopyManager copyManager(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static void appendCsvRow(StringBuilder out, Patient patient) {
+        appendCsvText(out, patient.getName());
+        out.append(',');
+        appendCsvText(out, patient.getDiagnosis());
+        out.append(',');
+        if (patient.getBillAmount() != null) {
+            patient.getBillAmount().appendTo(out);
+        }
+        out.append(',');
+        if (patient.getAssignedDoctor() != null && patient.getAssignedDoctor().getId() != null) {
+            out.append(patient.getAssignedDoctor().getId());
+        }
+        out.append('\n');
+    }
+
+    // En CSV de COPY un campo vacío sin comillas es NULL; el texto va siempre entre comillas.
+    private static void appendCsvText(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
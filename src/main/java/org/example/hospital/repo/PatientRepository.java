@@ -1,8 +1,13 @@
 package org.example.hospital.repo;
 
 import org.example.hospital.model.Patient;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 /**
  * Repository for basic CRUD operations on Patient + custom queries.
@@ -10,4 +15,19 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface PatientRepository extends CrudRepository<Patient, Long>, PatientRepositoryCustom {
     // Incluye métodos custom definidos en PatientRepositoryCustom
+
+    /**
+     * Same as {@link CrudRepository#findAll()}, but joins the assigned doctor into the same SELECT.
+     */
+    @Override
+    @EntityGraph(attributePaths = "assignedDoctor")
+    Iterable<Patient> findAll();
+
+    /**
+     * Keyset page: the next {@code limit} patients whose ID is greater than {@code afterId},
+     * with their assigned doctors joined in.
+     */
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = "assignedDoctor")
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
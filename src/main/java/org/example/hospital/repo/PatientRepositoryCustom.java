@@ -1,7 +1,11 @@
 package org.example.hospital.repo;
 
+import org.example.hospital.model.DepartmentAverageBill;
+import org.example.hospital.model.DoctorPatientCount;
 import org.example.hospital.model.Patient;
+import org.example.hospital.model.PatientReassignment;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -11,9 +15,34 @@ public interface PatientRepositoryCustom {
 
     List<Patient> findPatientsForDoctor(Long doctorId);
 
-    List<Object[]> averageBillPerDepartment();
+    List<DepartmentAverageBill> averageBillPerDepartment();
 
-    List<Object[]> doctorsWithPatientCount(int minCount);
+    List<DoctorPatientCount> doctorsWithPatientCount(int minCount);
 
-    List<Patient> patientsAboveAvgBill();
+    /**
+     * Patients whose bill is strictly greater than {@code threshold}, ordered by ID.
+     */
+    List<Patient> patientsWithBillAbove(BigDecimal threshold);
+
+    /**
+     * Keyset page of {@link #patientsWithBillAbove(BigDecimal)}: up to {@code limit} patients with an ID
+     * greater than {@code afterId}.
+     */
+    List<Patient> patientsWithBillAbove(BigDecimal threshold, long afterId, int limit);
+
+    /**
+     * Ranked fuzzy/prefix search over patient name and diagnosis (trigram word similarity), best match first,
+     * equally good matches by ID, so consecutive pages neither repeat nor skip a patient.
+     * @param text The search text.
+     * @param limit Maximum number of patients returned.
+     * @param offset Number of better-ranked patients to skip.
+     */
+    List<Patient> searchPatients(String text, int limit, int offset);
+
+    /**
+     * Moves every patient of {@code fromDoctorId} to {@code toDoctorId} with one UPDATE statement,
+     * incrementing their versions. Nothing is moved unless the target is a {@code DOCTOR}.
+     * @return How many patients moved, with the aggregate of their bills.
+     */
+    PatientReassignment reassignPatients(Long fromDoctorId, Long toDoctorId);
 }
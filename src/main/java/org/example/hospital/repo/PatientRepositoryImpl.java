@@ -1,65 +1,99 @@
 package org.example.hospital.repo;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
+import org.example.hospital.config.TransactionIdTracker;
+import org.example.hospital.model.DepartmentAverageBill;
+import org.example.hospital.model.DoctorPatientCount;
+import org.example.hospital.model.Money;
 import org.example.hospital.model.Patient;
+import org.example.hospital.model.PatientReassignment;
+import org.example.hospital.sql.PatientQuery;
+import org.example.hospital.sql.PatientQueryRegistry;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
  * Implementation of custom queries using native SQL.
+ * The SQL lives in {@link PatientQuery}; rows are mapped straight from the ResultSet into typed objects.
+ * Queries run in read-only transactions, so a read replica can serve them when one is configured.
  */
 @Repository
+@Transactional(readOnly = true)
 public class PatientRepositoryImpl implements PatientRepositoryCustom {
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    private static final RowMapper<DepartmentAverageBill> DEPARTMENT_AVERAGE_BILL =
+            (rs, rowNum) -> new DepartmentAverageBill(rs.getString(1), rs.getBigDecimal(2));
+
+    private static final RowMapper<DoctorPatientCount> DOCTOR_PATIENT_COUNT =
+            (rs, rowNum) -> new DoctorPatientCount(rs.getLong(1), rs.getString(2), rs.getLong(3));
+
+    private static final RowMapper<PatientReassignment> PATIENT_REASSIGNMENT =
+            (rs, rowNum) -> new PatientReassignment(rs.getLong(1), money(rs.getObject(2, Long.class)), rs.getLong(3),
+                    money(rs.getObject(4, Long.class)), money(rs.getObject(5, Long.class)));
+
+    private final PatientQueryRegistry queries;
+    private final QueryMetrics queryMetrics;
+
+    public PatientRepositoryImpl(PatientQueryRegistry queries, QueryMetrics queryMetrics) {
+        this.queries = queries;
+        this.queryMetrics = queryMetrics;
+    }
 
     @Override
     public List<Patient> findPatientsForDoctor(Long doctorId) {
         // Query para encontrar pacientes asignados a un doctor específico.
-        // Usa `Patient.class` para que JPA mapee automáticamente los resultados a objetos Patient.
-        Query query = entityManager.createNativeQuery(
-                "SELECT * FROM patients WHERE assigned_doctor_id = ?", Patient.class);
-        query.setParameter(1, doctorId); // Asigna el doctorId al parámetro de la consulta
-        return query.getResultList();
+        // El JOIN con staff trae al doctor en la misma fila: una sola consulta, sin un SELECT extra por doctor.
+        return queryMetrics.record("findPatientsForDoctor", PatientQuery.FIND_PATIENTS_FOR_DOCTOR, () ->
+                queries.query(PatientQuery.FIND_PATIENTS_FOR_DOCTOR, PatientRowMapper.INSTANCE, doctorId));
     }
 
     @Override
-    public List<Object[]> averageBillPerDepartment() {
+    public List<DepartmentAverageBill> averageBillPerDepartment() {
         // Query para calcular el promedio de las facturas por departamento de los doctores asignados.
-        // Retorna un List<Object[]> donde cada Object[] contiene el nombre del departamento y el promedio.
-        Query query = entityManager.createNativeQuery(
-                "SELECT s.department, AVG(p.bill_amount) " +
-                        "FROM patients p JOIN staff s ON p.assigned_doctor_id = s.id " +
-                        "GROUP BY s.department");
-        return query.getResultList();
+        return queryMetrics.record("averageBillPerDepartment", PatientQuery.AVERAGE_BILL_PER_DEPARTMENT, () ->
+                queries.query(PatientQuery.AVERAGE_BILL_PER_DEPARTMENT, DEPARTMENT_AVERAGE_BILL));
     }
 
     @Override
-    public List<Object[]> doctorsWithPatientCount(int minCount) {
+    public List<DoctorPatientCount> doctorsWithPatientCount(int minCount) {
         // Query para listar doctores que tienen más de 'minCount' pacientes.
-        // Importante: `s.role = 'DOCTOR'` ahora usa el valor en MAYÚSCULAS para coincidir con el enum.
-        // Retorna un List<Object[]> donde cada Object[] contiene el ID del doctor, su nombre y el conteo de pacientes.
-        Query query = entityManager.createNativeQuery(
-                "SELECT s.id, s.name, COUNT(p.id) " +
-                        "FROM staff s JOIN patients p ON s.id = p.assigned_doctor_id " +
-                        "WHERE s.role = 'DOCTOR' " + // <-- CORRECCIÓN: 'DOCTOR' en mayúsculas
-                        "GROUP BY s.id, s.name " +
-                        "HAVING COUNT(p.id) > ?"); // Usa `>` (mayor que)
-        query.setParameter(1, minCount); // Asigna minCount al parámetro de la consulta
-        return query.getResultList();
+        return queryMetrics.record("doctorsWithPatientCount", PatientQuery.DOCTORS_WITH_PATIENT_COUNT, () ->
+                queries.query(PatientQuery.DOCTORS_WITH_PATIENT_COUNT, DOCTOR_PATIENT_COUNT, minCount));
+    }
+
+    @Override
+    public List<Patient> patientsWithBillAbove(BigDecimal threshold) {
+        // Umbral ya calculado (media o percentil en memoria): sin subconsulta AVG sobre toda la tabla.
+        return queryMetrics.record("patientsWithBillAbove", PatientQuery.PATIENTS_WITH_BILL_ABOVE, () ->
+                queries.query(PatientQuery.PATIENTS_WITH_BILL_ABOVE, PatientRowMapper.INSTANCE, threshold));
     }
 
     @Override
-    public List<Patient> patientsAboveAvgBill() {
-        // Query para encontrar pacientes cuya factura es superior al promedio general de facturas.
-        // Usa `Patient.class` para que JPA mapee automáticamente los resultados a objetos Patient.
-        Query query = entityManager.createNativeQuery(
-                "SELECT * FROM patients " +
-                        "WHERE bill_amount > (SELECT AVG(bill_amount) FROM patients)",
-                Patient.class);
-        return query.getResultList();
+    public List<Patient> patientsWithBillAbove(BigDecimal threshold, long afterId, int limit) {
+        return queryMetrics.record("patientsWithBillAbove", PatientQuery.PATIENTS_WITH_BILL_ABOVE_PAGE, () ->
+                queries.query(PatientQuery.PATIENTS_WITH_BILL_ABOVE_PAGE, PatientRowMapper.INSTANCE,
+                        threshold, afterId, limit));
+    }
+
+    @Override
+    public List<Patient> searchPatients(String text, int limit, int offset) {
+        return queryMetrics.record("searchPatients", PatientQuery.SEARCH_PATIENTS, () ->
+                queries.query(PatientQuery.SEARCH_PATIENTS, PatientRowMapper.INSTANCE, text, text, offset + limit, limit, offset));
+    }
+
+    @Override
+    @Transactional
+    public PatientReassignment reassignPatients(Long fromDoctorId, Long toDoctorId) {
+        TransactionIdTracker.markWrite(); // UPDATE por JDBC: Hibernate no lo ve
+        return queryMetrics.record("reassignPatients", PatientQuery.REASSIGN_PATIENTS, () ->
+                queries.query(PatientQuery.REASSIGN_PATIENTS, PATIENT_REASSIGNMENT,
+                        toDoctorId, fromDoctorId, toDoctorId)).get(0);
+    }
+
+    private static Money money(Long cents) {
+        return cents == null ? null : Money.ofMinor(cents);
     }
-}
\ No newline at end of file
+}
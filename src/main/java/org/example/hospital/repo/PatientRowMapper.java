@@ -0,0 +1,38 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of {@code patients LEFT JOIN staff} into a Patient with its assigned doctor already set,
+ * so a single statement loads both without any follow-up SELECT on {@code staff}.
+ * Expects the doctor columns aliased as {@code doctor_id}, {@code doctor_name}, {@code doctor_role}
+ * and {@code doctor_department}, and the bill as {@code bill_cents} (see the patient queries in {@code PatientQuery}).
+ * The bill is read as a whole number of cents with {@code getLong} instead of parsing a BigDecimal per row.
+ */
+public class PatientRowMapper implements RowMapper<Patient> {
+
+    public static final PatientRowMapper INSTANCE = new PatientRowMapper();
+
+    @Override
+    public Patient mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Staff doctor = null;
+        long doctorId = rs.getLong("doctor_id");
+        if (!rs.wasNull()) {
+            doctor = new Staff(rs.getString("doctor_name"), Role.valueOf(rs.getString("doctor_role")),
+                    rs.getString("doctor_department"));
+            doctor.setId(doctorId);
+        }
+        long billCents = rs.getLong("bill_cents");
+        Money billAmount = rs.wasNull() ? null : Money.ofMinor(billCents);
+        Patient patient = new Patient(rs.getString("name"), rs.getString("diagnosis"), billAmount, doctor);
+        patient.setId(rs.getLong("id"));
+        return patient;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.hospital.repo;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.hospital.sql.PatientQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-query latency and row-count instrumentation for the custom repository methods.
+ * <p>
+ * Records {@value #TIMER} (p50/p95/p99 plus a Prometheus histogram) and {@value #ROWS}, both tagged with
+ * the repository {@code method} and the {@code query} ({@link PatientQuery} constant) it executes.
+ */
+@Component
+public class QueryMetrics {
+
+    static final String TIMER = "hospital.repository.query";
+    static final String ROWS = "hospital.repository.rows";
+
+    private final MeterRegistry registry;
+    // Los meters se crean una vez por (método, query); el builder no se ejecuta en cada llamada.
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs {@code call}, timing it and recording how many rows it returned.
+     * @param method Repository method name, e.g. {@code findPatientsForDoctor}.
+     * @param query The statement being executed.
+     */
+    public <T> List<T> record(String method, PatientQuery query, Supplier<List<T>> call) {
+        Meters m = meters.computeIfAbsent(method + '/' + query.name(), key -> new Meters(method, query.name()));
+        long start = System.nanoTime();
+        try {
+            List<T> result = call.get();
+            m.rows.record(result.size());
+            return result;
+        } finally {
+            m.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final class Meters {
+        final Timer timer;
+        final DistributionSummary rows;
+
+        Meters(String method, String query) {
+            timer = Timer.builder(TIMER)
+                    .description("Latency of custom repository queries")
+                    .tags("method", method, "query", query)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            rows = DistributionSummary.builder(ROWS)
+                    .description("Rows returned by custom repository queries")
+                    .tags("method", method, "query", query)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.hospital.repo;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: the first caller for a key runs it, and callers arriving while it runs
+ * wait for it and get the same result (or the same exception) instead of running it again. With a reuse window,
+ * a finished result is also handed out for that long after it completes; with none, nothing is kept once the
+ * call is done, so this is not a cache.
+ * <p>
+ * Shared results go to several threads: they must not be modified.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final long reuseNanos;
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * @param reuse How long a finished result keeps being handed out; zero to share only in-flight calls.
+     */
+    public SingleFlight(Duration reuse) {
+        this.reuseNanos = reuse.toNanos();
+    }
+
+    /**
+     * @param key Identifies the call: same key, same result.
+     * @param call Runs the call; only invoked if no call for {@code key} is in flight or reusable.
+     * @return The result of this or the shared call.
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, mine);
+        if (running != null) {
+            shared.increment();
+            return join(running);
+        }
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Los que esperaban reciben el mismo error; el siguiente intento vuelve a ejecutar
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (reuseNanos > 0 && !mine.isCompletedExceptionally()) {
+                CompletableFuture.delayedExecutor(reuseNanos, TimeUnit.NANOSECONDS)
+                        .execute(() -> calls.remove(key, mine));
+            } else {
+                calls.remove(key, mine);
+            }
+        }
+    }
+
+    /**
+     * @return How many calls got a result run by another caller.
+     */
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
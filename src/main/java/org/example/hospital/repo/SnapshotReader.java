@@ -0,0 +1,44 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.config.ReadRouting;
+import org.example.hospital.event.CommitSnapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the reads that (re)load an in-memory copy of the data against one fixed database snapshot, and reports
+ * which commits that snapshot includes, so change events already contained in the copy are not applied twice.
+ * <p>
+ * The reads run in a read-only REPEATABLE READ transaction on the primary: every statement in it sees the
+ * snapshot taken by the first one, which is the one returned.
+ */
+@Component
+public class SnapshotReader {
+
+    private static final String SNAPSHOT_SQL = "SELECT txid_current_snapshot()::text";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SnapshotReader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * @param reads Statements to run on the snapshot; JDBC calls in it join the transaction.
+     * @return The commits the reads saw.
+     */
+    public CommitSnapshot read(Runnable reads) {
+        return ReadRouting.fromPrimary(() -> transactionTemplate.execute(status -> {
+            CommitSnapshot snapshot = CommitSnapshot.parse(jdbcTemplate.queryForObject(SNAPSHOT_SQL, String.class));
+            reads.run();
+            return snapshot;
+        }));
+    }
+}
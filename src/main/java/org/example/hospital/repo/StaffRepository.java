@@ -1,13 +1,57 @@
 package org.example.hospital.repo;
 
 import org.example.hospital.model.Staff;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for basic CRUD operations on Staff.
+ * Single-row lookups go through the bounded "staff" cache (see spring.cache.caffeine.spec) and return unmanaged
+ * copies (see {@link StaffRepositoryCustom}); every write path evicts the affected entry.
  */
 @Repository
-public interface StaffRepository extends CrudRepository<Staff, Long> {
+public interface StaffRepository extends CrudRepository<Staff, Long>, StaffRepositoryCustom {
     // CRUD listo: findAll, save, findById, deleteById
+
+    String CACHE = "staff";
+
+    // Transacción de escritura: los fallos leen del primario, para no cachear una fila que una réplica aún no actualizó
+    @Override
+    @Transactional
+    @Cacheable(cacheNames = CACHE, key = "#p0", unless = "#result == null")
+    Optional<Staff> findById(Long id);
+
+    // beforeInvocation: se desaloja aunque el save falle, por si la instancia cacheada ya fue modificada
+    @Override
+    @CacheEvict(cacheNames = CACHE, key = "#p0.id", condition = "#p0.id != null", beforeInvocation = true)
+    <S extends Staff> S save(S staff);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE, key = "#p0", beforeInvocation = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE, key = "#p0.id", condition = "#p0.id != null", beforeInvocation = true)
+    void delete(Staff staff);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE, allEntries = true, beforeInvocation = true)
+    <S extends Staff> Iterable<S> saveAll(Iterable<S> staff);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE, allEntries = true, beforeInvocation = true)
+    void deleteAll();
+
+    /**
+     * Keyset page: the next {@code limit} staff members whose ID is greater than {@code afterId}.
+     */
+    @Transactional(readOnly = true)
+    List<Staff> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
@@ -0,0 +1,17 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.model.Staff;
+
+import java.util.Optional;
+
+/**
+ * Custom lookups of {@link StaffRepository}, replacing the default ones.
+ */
+public interface StaffRepositoryCustom {
+
+    /**
+     * @return An unmanaged copy of the staff member, never the persistence context's instance: the result is
+     * shared through the "staff" cache, and a later merge in the loading request would modify the managed one.
+     */
+    Optional<Staff> findById(Long id);
+}
@@ -0,0 +1,23 @@
+package org.example.hospital.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.hospital.model.Staff;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Implementation of {@link StaffRepositoryCustom}.
+ */
+@Repository
+public class StaffRepositoryImpl implements StaffRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Staff> findById(Long id) {
+        return Optional.ofNullable(entityManager.find(Staff.class, id)).map(Staff::copy);
+    }
+}
@@ -2,11 +2,25 @@ package org.example.hospital.sql;
 
 /**
  * Contains native SQL queries for patient-related operations.
+ * This is the single source of the SQL text: {@link PatientQueryRegistry} validates every constant at startup
+ * and executes them, so each statement string is identical on every call and reused as a server-side
+ * prepared statement by the driver.
+ * <p>
+ * Patient queries select the columns expected by {@code PatientRowMapper}: the patient plus its doctor
+ * joined into the same row, aliased {@code doctor_*}. Bills are selected as whole cents ({@code bill_cents}), so
+ * mapping a row does not parse a BigDecimal.
+ * <p>
+ * The {@code ALL_*} statements read the whole table and are meant for the streaming reads of
+ * {@code CursorStreamRepository}, which fetch them through a server-side cursor.
  */
 public enum PatientQuery {
 
     FIND_PATIENTS_FOR_DOCTOR("""
-        SELECT * FROM patients WHERE assigned_doctor_id = ?
+        SELECT p.id, p.name, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents,
+               s.id AS doctor_id, s.name AS doctor_name, s.role AS doctor_role, s.department AS doctor_department
+        FROM patients p
+        JOIN staff s ON p.assigned_doctor_id = s.id
+        WHERE p.assigned_doctor_id = ?
     """),
 
     AVERAGE_BILL_PER_DEPARTMENT("""
@@ -20,14 +34,93 @@ public enum PatientQuery {
         SELECT s.id, s.name, COUNT(p.id)
         FROM staff s
         JOIN patients p ON s.id = p.assigned_doctor_id
-        WHERE s.role = 'doctor'
+        WHERE s.role = 'DOCTOR'
         GROUP BY s.id, s.name
         HAVING COUNT(p.id) > ?
     """),
 
-    PATIENTS_ABOVE_AVG_BILL("""
-        SELECT * FROM patients
-        WHERE bill_amount > (SELECT AVG(bill_amount) FROM patients)
+    ALL_PATIENTS("""
+        SELECT p.id, p.name, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents,
+               s.id AS doctor_id, s.name AS doctor_name, s.role AS doctor_role, s.department AS doctor_department
+        FROM patients p
+        LEFT JOIN staff s ON p.assigned_doctor_id = s.id
+        ORDER BY p.id
+    """),
+
+    ALL_BILL_CENTS("""
+        SELECT (bill_amount * 100)::bigint AS bill_cents
+        FROM patients
+        WHERE bill_amount IS NOT NULL
+    """),
+
+    // Solo las columnas que usan las estadísticas en memoria: sin nombre ni datos del doctor salvo el departamento.
+    ALL_BILLING_FACTS("""
+        SELECT p.id, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents, p.assigned_doctor_id, s.department
+        FROM patients p
+        LEFT JOIN staff s ON p.assigned_doctor_id = s.id
+        ORDER BY p.id
+    """),
+
+    PATIENTS_WITH_BILL_ABOVE("""
+        SELECT p.id, p.name, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents,
+               s.id AS doctor_id, s.name AS doctor_name, s.role AS doctor_role, s.department AS doctor_department
+        FROM patients p
+        LEFT JOIN staff s ON p.assigned_doctor_id = s.id
+        WHERE p.bill_amount > ?
+        ORDER BY p.id
+    """),
+
+    PATIENTS_WITH_BILL_ABOVE_PAGE("""
+        SELECT p.id, p.name, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents,
+               s.id AS doctor_id, s.name AS doctor_name, s.role AS doctor_role, s.department AS doctor_department
+        FROM patients p
+        LEFT JOIN staff s ON p.assigned_doctor_id = s.id
+        WHERE p.bill_amount > ? AND p.id > ?
+        ORDER BY p.id LIMIT ?
+    """),
+
+    // Búsqueda por trigramas sobre nombre + diagnóstico: <% filtra por word_similarity (prefijos y errores de
+    // escritura) y <<-> ordena por distancia usando el índice GiST de V6; la expresión debe coincidir con la del índice.
+    // La subconsulta solo ordena por distancia (recorrido KNN) y trae offset + limit filas más los empates con la
+    // última (WITH TIES, PostgreSQL 13+); fuera se desempata por p.id, así las páginas no repiten ni saltan pacientes.
+    // El doctor se une después de paginar: el LIMIT 1 impide que el LATERAL se convierta en un join normal, así
+    // solo las filas de la página buscan en staff por clave primaria en lugar de recorrer la tabla para un hash join.
+    // Parámetros: texto, texto, offset + limit, limit, offset.
+    SEARCH_PATIENTS("""
+        SELECT p.id, p.name, p.diagnosis, (p.bill_amount * 100)::bigint AS bill_cents,
+               s.id AS doctor_id, s.name AS doctor_name, s.role AS doctor_role, s.department AS doctor_department
+        FROM (
+            SELECT *
+            FROM (
+                SELECT p.id, p.name, p.diagnosis, p.bill_amount, p.assigned_doctor_id,
+                       ? <<-> (coalesce(p.name, '') || ' ' || coalesce(p.diagnosis, '')) AS distance
+                FROM patients p
+                WHERE ? <% (coalesce(p.name, '') || ' ' || coalesce(p.diagnosis, ''))
+                ORDER BY distance
+                FETCH FIRST ? ROWS WITH TIES
+            ) ranked
+            ORDER BY distance, id
+            LIMIT ? OFFSET ?
+        ) p
+        LEFT JOIN LATERAL (
+            SELECT s.id, s.name, s.role, s.department FROM staff s WHERE s.id = p.assigned_doctor_id LIMIT 1
+        ) s ON true
+        ORDER BY p.distance, p.id
+    """),
+
+    // Un único UPDATE para todos los pacientes del doctor; el EXISTS repite la comprobación del rol en la
+    // misma sentencia, y el CTE devuelve el agregado de lo movido en lugar de una fila por paciente.
+    REASSIGN_PATIENTS("""
+        WITH moved AS (
+            UPDATE patients
+            SET assigned_doctor_id = ?, version = version + 1
+            WHERE assigned_doctor_id = ?
+              AND EXISTS (SELECT 1 FROM staff WHERE id = ? AND role = 'DOCTOR')
+            RETURNING bill_amount
+        )
+        SELECT COUNT(*), SUM(bill_amount * 100)::bigint, COUNT(bill_amount),
+               MIN(bill_amount * 100)::bigint, MAX(bill_amount * 100)::bigint
+        FROM moved
     """);
 
     private final String sql;
@@ -0,0 +1,73 @@
+package org.example.hospital.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes the statements defined in {@link PatientQuery}.
+ * <p>
+ * Every statement is parsed by the server once at startup (describe-only, no execution) and the application
+ * fails to start if any of them is invalid against the current schema. At runtime each call passes the
+ * enum's SQL string unchanged, so the driver's per-connection statement cache
+ * ({@code prepareThreshold}/{@code preparedStatementCacheQueries}) keeps it as a server-side prepared
+ * statement and skips parse/plan on repeated calls.
+ */
+@Component
+public class PatientQueryRegistry implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientQueryRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientQueryRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Runs {@code query} and maps each row with {@code rowMapper}.
+     * @param args Positional parameters for the statement's {@code ?} placeholders.
+     */
+    public <T> List<T> query(PatientQuery query, RowMapper<T> rowMapper, Object... args) {
+        return jdbcTemplate.query(query.getSql(), rowMapper, args);
+    }
+
+    /**
+     * Runs after all singletons exist, i.e. after the JPA schema setup, so the tables are there.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        validate();
+    }
+
+    /**
+     * Asks the server to parse and describe every {@link PatientQuery}.
+     * @throws IllegalStateException listing every statement that failed.
+     */
+    public void validate() {
+        List<String> failures = jdbcTemplate.execute((ConnectionCallback<List<String>>) con -> {
+            List<String> errors = new ArrayList<>();
+            for (PatientQuery query : PatientQuery.values()) {
+                try (PreparedStatement statement = con.prepareStatement(query.getSql())) {
+                    statement.getMetaData(); // Describe-only round trip: parses and resolves names without executing
+                } catch (SQLException e) {
+                    errors.add(query.name() + ": " + e.getMessage());
+                }
+            }
+            return errors;
+        });
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Invalid PatientQuery statements:\n" + String.join("\n", failures));
+        }
+        log.info("Validated {} PatientQuery statements", PatientQuery.values().length);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.model.Money;
+
+/**
+ * One bar of a bill histogram.
+ * @param from Lowest bill amount in the bucket, inclusive.
+ * @param to Upper bound of the bucket, exclusive.
+ * @param patients Patients whose bill falls in [from, to).
+ */
+public record BillBucket(Money from, Money to, long patients) {
+}
@@ -0,0 +1,27 @@
+package org.example.hospital.stats;
+
+import java.util.Locale;
+
+/**
+ * What a billing breakdown groups patients by.
+ */
+public enum BillDimension {
+    /** Department of the assigned doctor; unassigned patients form the null group. */
+    DEPARTMENT,
+    /** Diagnosis text as stored. */
+    DIAGNOSIS,
+    /** Assigned doctor ID. */
+    DOCTOR;
+
+    /**
+     * @param value Dimension name in any case, e.g. {@code department}.
+     * @return The dimension, or null if there is none with that name.
+     */
+    public static BillDimension parse(String value) {
+        try {
+            return valueOf(value.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
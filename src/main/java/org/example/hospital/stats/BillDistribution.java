@@ -0,0 +1,200 @@
+package org.example.hospital.stats;
+
+import com.tdunning.math.stats.TDigest;
+import org.example.hospital.event.CommitSnapshot;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.repo.CursorStreamRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Global distribution of patient bills: an exact running mean plus an approximate quantile sketch (t-digest).
+ * Lets the above-average and percentile reports pick their threshold without scanning the table.
+ * <p>
+ * The mean follows every create/update/delete exactly. The sketch only supports insertions, so it absorbs new
+ * and changed bills immediately and forgets removed ones at the next rebuild, which re-reads every bill amount
+ * in a single streaming pass. Changes the pass already saw (by transaction ID, see
+ * {@link org.example.hospital.event.CommitSnapshot}) are not applied again, whenever their event arrives.
+ * After a bulk change the first read starts that pass in the background and, like every read until it lands,
+ * is answered from the current state.
+ */
+@Component
+public class BillDistribution {
+
+    private static final double COMPRESSION = 100;
+
+    private final CursorStreamRepository cursorStreamRepository;
+    private final Object rebuildLock = new Object();
+    private final StaleRefresh refresh;
+
+    private long sumCents;
+    private long count;
+    private TDigest digest = TDigest.createMergingDigest(COMPRESSION);
+    private volatile boolean loaded;
+    private volatile boolean built;
+    private long invalidations;
+    // Commits incluidos en el estado actual: sus eventos ya están contados
+    private CommitSnapshot basis;
+    // Eventos recibidos mientras se reconstruye; se reaplican sobre el nuevo estado antes del cambio.
+    private List<PatientChangedEvent> pending;
+
+    public BillDistribution(CursorStreamRepository cursorStreamRepository,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                            ApplicationEventPublisher events) {
+        this.cursorStreamRepository = cursorStreamRepository;
+        this.refresh = new StaleRefresh("bill distribution", executor, events, this::rebuild);
+    }
+
+    /**
+     * @return Mean of all non-null bills, or null when there are none.
+     */
+    public BigDecimal mean() {
+        ensureLoaded();
+        synchronized (this) {
+            return count == 0 ? null : BigDecimal.valueOf(sumCents, 2).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+        }
+    }
+
+    /**
+     * @param percentile Percentile in the open interval (0, 100), e.g. 90.
+     * @return Approximate bill amount at that percentile, or null when there are no bills.
+     */
+    public BigDecimal percentile(double percentile) {
+        ensureLoaded();
+        synchronized (this) {
+            if (digest.size() == 0) {
+                return null;
+            }
+            return BigDecimal.valueOf(digest.quantile(percentile / 100.0)).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Antes de que ResourceVersions renueve los ETags de las estadísticas
+    public synchronized void onPatientChanged(PatientChangedEvent event) {
+        if (event.before() != null && event.after() != null
+                && Objects.equals(event.before().billAmount(), event.after().billAmount())) {
+            return;
+        }
+        if (basis != null && basis.includes(event.txid())) {
+            return; // La última reconstrucción ya leyó este cambio
+        }
+        apply(event);
+        if (pending != null) {
+            pending.add(event);
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        invalidations++;
+        loaded = false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes sum, count and the sketch from a single streaming pass over all bill amounts.
+     * Writers are not blocked: changes seen during the scan, and not already read by it, are replayed onto the
+     * new state.
+     */
+    @Scheduled(initialDelayString = "${hospital.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hospital.stats.reconcile-interval-ms:300000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            doRebuild();
+        }
+    }
+
+    private void doRebuild() {
+        long invalidationsBefore;
+        synchronized (this) {
+            pending = new ArrayList<>();
+            invalidationsBefore = invalidations;
+        }
+        long[] freshSum = {0};
+        long[] freshCount = {0};
+        TDigest freshDigest = TDigest.createMergingDigest(COMPRESSION);
+        CommitSnapshot snapshot;
+        try {
+            snapshot = cursorStreamRepository.streamBillCents(cents -> {
+                freshSum[0] += cents;
+                freshCount[0]++;
+                freshDigest.add(cents / 100.0);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            sumCents = freshSum[0];
+            count = freshCount[0];
+            digest = freshDigest;
+            for (PatientChangedEvent event : pending) {
+                if (!snapshot.includes(event.txid())) {
+                    apply(event);
+                }
+            }
+            pending = null;
+            basis = snapshot;
+            built = true;
+            // Una carga masiva durante el recorrido puede no estar incluida: seguir marcado como obsoleto
+            loaded = invalidations == invalidationsBefore;
+        }
+    }
+
+    /**
+     * Loads the distribution on first use; once there is one, a stale one keeps answering while it is rebuilt.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        if (built) {
+            refresh.request();
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (!built) { // Quien esperaba la primera carga usa la del hilo anterior
+                doRebuild();
+            }
+        }
+    }
+
+    private void apply(PatientChangedEvent event) {
+        PatientSnapshot before = event.before();
+        PatientSnapshot after = event.after();
+        if (before != null && before.billAmount() != null) {
+            sumCents -= before.billAmount().minorUnits();
+            count--;
+        }
+        if (after != null && after.billAmount() != null) {
+            sumCents += after.billAmount().minorUnits();
+            count++;
+            digest.add(after.billAmount().minorUnits() / 100.0);
+        }
+    }
+}
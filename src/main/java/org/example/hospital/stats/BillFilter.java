@@ -0,0 +1,17 @@
+package org.example.hospital.stats;
+
+import java.math.BigDecimal;
+
+/**
+ * Restricts a billing report to matching patients; null fields do not filter.
+ * A bill range excludes patients without a bill.
+ * @param department Department of the assigned doctor.
+ * @param diagnosis Exact diagnosis.
+ * @param doctorId Assigned doctor.
+ * @param minBill Lowest bill amount, inclusive.
+ * @param maxBill Highest bill amount, inclusive.
+ */
+public record BillFilter(String department, String diagnosis, Long doctorId, BigDecimal minBill, BigDecimal maxBill) {
+
+    public static final BillFilter NONE = new BillFilter(null, null, null, null, null);
+}
@@ -0,0 +1,19 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.model.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a billing breakdown.
+ * @param key Department, diagnosis or doctor ID of the group; null for patients without one.
+ * @param patients Patients in the group.
+ * @param billedPatients Patients in the group with a bill.
+ * @param total Sum of their bills.
+ * @param average total / billedPatients, or null without bills.
+ * @param min Lowest bill, or null without bills.
+ * @param max Highest bill, or null without bills.
+ */
+public record BillGroup(Object key, long patients, long billedPatients, Money total, BigDecimal average,
+                        Money min, Money max) {
+}
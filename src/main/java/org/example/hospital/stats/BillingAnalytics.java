@@ -0,0 +1,268 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.event.CommitSnapshot;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.model.Money;
+import org.example.hospital.repo.CursorStreamRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Ad hoc billing breakdowns (by department, diagnosis or doctor, with filters and histograms) answered from an
+ * in-memory {@link PatientColumns} snapshot instead of a GROUP BY over the whole table.
+ * <p>
+ * The snapshot is loaded in one streaming pass and then follows every patient and staff change event; a bulk
+ * change marks it stale, and the next report starts a reload in the background while it is still answered from
+ * the current copy. Reports scan it in parallel under a read lock, so they only wait for the (short) event
+ * updates. Like {@link BillDistribution}, a periodic rebuild replaces it with a fresh copy without blocking
+ * writers, replaying the changes seen during the scan that it had not already read.
+ */
+@Component
+public class BillingAnalytics {
+
+    private final CursorStreamRepository cursorStreamRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+
+    private final StaleRefresh refresh;
+
+    private PatientColumns columns = new PatientColumns();
+    private volatile boolean loaded;
+    private volatile boolean built;
+    private long invalidations;
+    // Commits incluidos en la copia actual: sus eventos ya están aplicados
+    private CommitSnapshot basis;
+    // Cambios recibidos mientras se reconstruye; se reaplican sobre la copia nueva antes del cambio.
+    private List<PendingChange> pending;
+
+    public BillingAnalytics(CursorStreamRepository cursorStreamRepository,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                            ApplicationEventPublisher events) {
+        this.cursorStreamRepository = cursorStreamRepository;
+        this.refresh = new StaleRefresh("billing analytics snapshot", executor, events, this::rebuild);
+    }
+
+    /**
+     * @param dimension What to group by.
+     * @param filter Which patients to include.
+     * @return One group per distinct value with at least one matching patient, highest total first.
+     */
+    public List<BillGroup> groupBy(BillDimension dimension, BillFilter filter) {
+        ensureLoaded();
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            PatientColumns.Selection selection = columns.select(filter, false);
+            if (selection == null) {
+                return List.of();
+            }
+            int groups = columns.groups(dimension);
+            PatientColumns.Aggregates aggregates = columns.aggregate(selection, columns.grouping(dimension), groups);
+            List<BillGroup> result = new ArrayList<>();
+            for (int group = 0; group < groups; group++) {
+                if (aggregates.patients[group] > 0) {
+                    result.add(toGroup(columns.key(dimension, group), aggregates, group));
+                }
+            }
+            result.sort(Comparator.comparing(BillGroup::total).thenComparingLong(BillGroup::patients).reversed());
+            return result;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * @param filter Which patients to include; patients without a bill never are.
+     * @param buckets Maximum number of buckets.
+     * @return Equal-width buckets from the lowest to the highest matching bill, including empty ones;
+     * empty if no patient matches.
+     */
+    public List<BillBucket> histogram(BillFilter filter, int buckets) {
+        ensureLoaded();
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            PatientColumns.Selection selection = columns.select(filter, true);
+            if (selection == null) {
+                return List.of();
+            }
+            PatientColumns.Aggregates range = columns.aggregate(selection, row -> 0, 1);
+            if (range.billed[0] == 0) {
+                return List.of();
+            }
+            long min = range.min[0];
+            long width = Math.max(1, (range.max[0] - min + buckets) / buckets); // ceil((max - min + 1) / buckets)
+            int count = (int) ((range.max[0] - min) / width) + 1;
+            PatientColumns snapshot = columns;
+            PatientColumns.Aggregates counts = snapshot.aggregate(selection,
+                    row -> (int) ((snapshot.bill(row) - min) / width), count);
+            List<BillBucket> result = new ArrayList<>(count);
+            for (int bucket = 0; bucket < count; bucket++) {
+                long from = min + bucket * width;
+                result.add(new BillBucket(Money.ofMinor(from), Money.ofMinor(from + width),
+                        counts.patients[bucket]));
+            }
+            return result;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Antes de que ResourceVersions renueve los ETags de las estadísticas
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.after() != null) {
+            apply(event.txid(), snapshot -> snapshot.upsert(event.after()));
+        } else {
+            apply(event.txid(), snapshot -> snapshot.remove(event.before().id()));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPatientsReassigned(PatientsReassignedEvent event) {
+        apply(event.txid(), snapshot -> snapshot.reassign(event.from().id(), event.to()));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStaffChanged(StaffChangedEvent event) {
+        if (event.after() != null) {
+            apply(event.txid(), snapshot -> snapshot.relabel(event.after()));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            invalidations++;
+            loaded = false;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the snapshot with a fresh one read in a single streaming pass.
+     * Writers are not blocked: changes seen during the scan, and not already read by it, are replayed onto the
+     * new snapshot.
+     */
+    @Scheduled(initialDelayString = "${hospital.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hospital.stats.reconcile-interval-ms:300000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            doRebuild();
+        }
+    }
+
+    private void doRebuild() {
+        Lock write = lock.writeLock();
+        long invalidationsBefore;
+        write.lock();
+        try {
+            pending = new ArrayList<>();
+            invalidationsBefore = invalidations;
+        } finally {
+            write.unlock();
+        }
+        PatientColumns fresh = new PatientColumns();
+        CommitSnapshot snapshot;
+        try {
+            snapshot = cursorStreamRepository.streamBillingFacts(fresh::upsert);
+        } catch (RuntimeException e) {
+            write.lock();
+            try {
+                pending = null;
+            } finally {
+                write.unlock();
+            }
+            throw e;
+        }
+        write.lock();
+        try {
+            for (PendingChange change : pending) {
+                if (!snapshot.includes(change.txid())) {
+                    change.change().accept(fresh);
+                }
+            }
+            pending = null;
+            columns = fresh;
+            basis = snapshot;
+            built = true;
+            // Una carga masiva durante la lectura puede no estar incluida: seguir marcado como obsoleto
+            loaded = invalidations == invalidationsBefore;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Loads the snapshot on first use; once there is one, a stale snapshot keeps serving while it is rebuilt.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        if (built) {
+            refresh.request();
+        } else {
+            rebuild(); // Aún no hay copia que servir
+        }
+    }
+
+    private void apply(long txid, Consumer<PatientColumns> change) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (basis != null && basis.includes(txid)) {
+                return; // La última reconstrucción ya leyó este cambio
+            }
+            change.accept(columns);
+            if (pending != null) {
+                pending.add(new PendingChange(txid, change));
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private static BillGroup toGroup(Object key, PatientColumns.Aggregates aggregates, int group) {
+        long billed = aggregates.billed[group];
+        Money total = Money.ofMinor(aggregates.sum[group]);
+        return new BillGroup(key, aggregates.patients[group], billed, total,
+                billed == 0 ? null : total.toBigDecimal().divide(BigDecimal.valueOf(billed), MathContext.DECIMAL64),
+                billed == 0 ? null : Money.ofMinor(aggregates.min[group]),
+                billed == 0 ? null : Money.ofMinor(aggregates.max[group]));
+    }
+
+    private record PendingChange(long txid, Consumer<PatientColumns> change) {
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.model.Money;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Billing aggregate for the patients of one department (the department of their assigned doctor).
+ */
+public record DepartmentBilling(String department, Money total, long count, Money min, Money max) {
+
+    /**
+     * @return total / count, or null when the department has no patients.
+     */
+    public BigDecimal average() {
+        return count == 0 ? null : total.toBigDecimal().divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+    }
+}
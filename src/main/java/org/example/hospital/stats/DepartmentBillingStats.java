@@ -0,0 +1,392 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.event.CommitSnapshot;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.PatientReassignment;
+import org.example.hospital.repo.SnapshotReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory running aggregates (sum, count, min, max) of patient bills per department.
+ * Kept current from patient/staff change events, so reads cost O(departments) and never touch SQL.
+ * A periodic reconcile recomputes everything from the database and corrects any drift. After a bulk change the
+ * aggregates are stale: the first read starts a reconcile in the background and, like every read until it
+ * lands, is answered from the current aggregates. Min/max that a removal left stale are re-read the same way.
+ * <p>
+ * The reconcile does not block writers: changes seen while its query runs are replayed onto the result. Each
+ * change carries the ID of its transaction, and the query reports which commits its snapshot includes, so a
+ * change the query already counted is skipped, whether its event arrives during the query or after the swap.
+ */
+@Component
+public class DepartmentBillingStats {
+
+    private static final Logger log = LoggerFactory.getLogger(DepartmentBillingStats.class);
+
+    private static final String RECONCILE_SQL =
+            "SELECT s.department, SUM(p.bill_amount * 100)::bigint, COUNT(p.bill_amount), " +
+                    "MIN(p.bill_amount * 100)::bigint, MAX(p.bill_amount * 100)::bigint " +
+                    "FROM patients p JOIN staff s ON p.assigned_doctor_id = s.id " +
+                    "GROUP BY s.department";
+
+    private static final String EXTREMES_SQL =
+            "SELECT MIN(p.bill_amount * 100)::bigint, MAX(p.bill_amount * 100)::bigint " +
+                    "FROM patients p JOIN staff s ON p.assigned_doctor_id = s.id " +
+                    "WHERE s.department = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnapshotReader snapshotReader;
+    private final Map<String, Aggregate> departments = new ConcurrentHashMap<>();
+    private final Object rebuildLock = new Object();
+    private final StaleRefresh refresh;
+    private final StaleRefresh extremesRefresh;
+    private volatile boolean loaded;
+    private volatile boolean built;
+    // Protegidos por el monitor de la instancia
+    private CommitSnapshot basis;
+    private long invalidations;
+    // Cambios recibidos mientras se reconcilia; se reaplican sobre el resultado si su consulta no los vio.
+    private List<PendingChange> pending;
+
+    public DepartmentBillingStats(JdbcTemplate jdbcTemplate,
+                                  SnapshotReader snapshotReader,
+                                  @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                                  ApplicationEventPublisher events) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotReader = snapshotReader;
+        this.refresh = new StaleRefresh("department billing stats", executor, events, this::reconcile);
+        this.extremesRefresh = new StaleRefresh("department bill extremes", executor, events, this::reloadStaleExtremes);
+    }
+
+    /**
+     * @return One aggregate per department with at least one billed patient, ordered by department name.
+     * Never queries the database once the first reconcile has run.
+     */
+    public List<DepartmentBilling> snapshot() {
+        ensureLoaded();
+        List<DepartmentBilling> result = new ArrayList<>(departments.size());
+        boolean staleExtremes = false;
+        for (Map.Entry<String, Aggregate> entry : departments.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            staleExtremes |= aggregate.hasStaleExtremes();
+            DepartmentBilling billing = aggregate.toBilling(entry.getKey());
+            if (billing.count() > 0) {
+                result.add(billing);
+            }
+        }
+        if (staleExtremes) {
+            extremesRefresh.request();
+        }
+        result.sort(Comparator.comparing(DepartmentBilling::department));
+        return result;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Antes de que ResourceVersions renueve los ETags de las estadísticas
+    public synchronized void onPatientChanged(PatientChangedEvent event) {
+        PatientSnapshot before = event.before();
+        PatientSnapshot after = event.after();
+        if (before != null && after != null
+                && Objects.equals(before.department(), after.department())
+                && Objects.equals(before.billAmount(), after.billAmount())) {
+            return; // Nothing billing-related changed
+        }
+        apply(event.txid(), aggregates -> {
+            if (before != null) {
+                remove(aggregates, before.department(), before.billAmount());
+            }
+            if (after != null) {
+                add(aggregates, after.department(), after.billAmount());
+            }
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onStaffChanged(StaffChangedEvent event) {
+        // A doctor moving department moves all of their patients' bills with them.
+        if (event.before() != null && event.after() != null
+                && !Objects.equals(event.before().department(), event.after().department())) {
+            invalidate();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onPatientsReassigned(PatientsReassignedEvent event) {
+        String from = event.from().department();
+        String to = event.to().department();
+        PatientReassignment moved = event.moved();
+        if (Objects.equals(from, to) || moved.billedPatients() == 0) {
+            return; // Los importes siguen en el mismo departamento
+        }
+        apply(event.txid(), aggregates -> {
+            Aggregate source = aggregates.get(from);
+            if (source != null) {
+                source.removeAll(moved);
+            }
+            aggregates.computeIfAbsent(to, d -> new Aggregate()).addAll(moved);
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        invalidate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    /**
+     * Recomputes every aggregate from SQL and replaces the in-memory state, logging any drift found.
+     * Runs without blocking writers: changes seen during the query and not included in its snapshot are
+     * replayed onto the result before the swap.
+     */
+    @Scheduled(initialDelayString = "${hospital.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hospital.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        synchronized (rebuildLock) {
+            doReconcile();
+        }
+    }
+
+    /**
+     * Loads the aggregates on first use; once there are some, stale ones keep answering while they are rebuilt.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        if (built) {
+            refresh.request();
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (!built) { // Quien esperaba la primera carga usa la del hilo anterior
+                doReconcile();
+            }
+        }
+    }
+
+    private void doReconcile() {
+        long invalidationsBefore;
+        synchronized (this) {
+            pending = new ArrayList<>();
+            invalidationsBefore = invalidations;
+        }
+        Map<String, Aggregate> fresh = new HashMap<>();
+        CommitSnapshot snapshot;
+        try {
+            snapshot = snapshotReader.read(() -> jdbcTemplate.query(RECONCILE_SQL, rs -> {
+                fresh.put(rs.getString(1), new Aggregate(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+            }));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (PendingChange change : pending) {
+                if (!snapshot.includes(change.txid())) {
+                    change.change().accept(fresh);
+                }
+            }
+            pending = null;
+            if (loaded) {
+                fresh.forEach((department, aggregate) -> {
+                    Aggregate current = departments.get(department);
+                    if (current == null || !current.sameAs(aggregate)) {
+                        log.warn("Department billing drift corrected for '{}': {} -> {}", department, current, aggregate);
+                    }
+                });
+            }
+            departments.keySet().retainAll(fresh.keySet());
+            departments.putAll(fresh);
+            basis = snapshot;
+            built = true;
+            // Una invalidación durante la consulta puede no estar incluida: seguir marcado como obsoleto
+            loaded = invalidations == invalidationsBefore;
+        }
+    }
+
+    /**
+     * Applies a change to the live aggregates, unless the last reconcile already counted it, and keeps it for
+     * replay while a reconcile is running. Caller holds the instance monitor.
+     */
+    private void apply(long txid, Consumer<Map<String, Aggregate>> change) {
+        if (basis != null && basis.includes(txid)) {
+            return;
+        }
+        change.accept(departments);
+        if (pending != null) {
+            pending.add(new PendingChange(txid, change));
+        }
+    }
+
+    private void invalidate() {
+        invalidations++;
+        loaded = false;
+    }
+
+    private static void add(Map<String, Aggregate> aggregates, String department, Money amount) {
+        if (department == null || amount == null) {
+            return; // Igual que el JOIN/AVG en SQL: sin doctor o sin factura no cuenta
+        }
+        aggregates.computeIfAbsent(department, d -> new Aggregate()).add(amount.minorUnits());
+    }
+
+    private static void remove(Map<String, Aggregate> aggregates, String department, Money amount) {
+        if (department == null || amount == null) {
+            return;
+        }
+        Aggregate aggregate = aggregates.get(department);
+        if (aggregate != null) {
+            aggregate.remove(amount.minorUnits());
+        }
+    }
+
+    /**
+     * Re-reads min/max of the departments where a removal left them stale.
+     */
+    private void reloadStaleExtremes() {
+        departments.forEach((department, aggregate) -> aggregate.reloadExtremes(department, this::loadExtremes));
+    }
+
+    private long[] loadExtremes(String department) {
+        return jdbcTemplate.queryForObject(EXTREMES_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, department);
+    }
+
+    private record PendingChange(long txid, Consumer<Map<String, Aggregate>> change) {
+    }
+
+    /**
+     * Mutable running aggregate for one department, in cents. Min/max cannot be maintained on removal,
+     * so removing the current extreme marks them stale until they are re-read for that department only; until
+     * then the previous bounds are reported.
+     */
+    private static final class Aggregate {
+
+        private long sum;
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private boolean extremesStale;
+
+        Aggregate() {
+        }
+
+        Aggregate(long sum, long count, long min, long max) {
+            this.sum = sum;
+            this.count = count;
+            this.min = count == 0 ? Long.MAX_VALUE : min;
+            this.max = count == 0 ? Long.MIN_VALUE : max;
+        }
+
+        synchronized void add(long amount) {
+            sum += amount;
+            count++;
+            if (!extremesStale) {
+                min = Math.min(min, amount);
+                max = Math.max(max, amount);
+            }
+        }
+
+        synchronized void remove(long amount) {
+            sum -= amount;
+            count--;
+            if (count <= 0) {
+                clear();
+            } else if (amount == min || amount == max) {
+                extremesStale = true;
+            }
+        }
+
+        synchronized void addAll(PatientReassignment moved) {
+            sum += moved.billTotal().minorUnits();
+            count += moved.billedPatients();
+            if (!extremesStale) {
+                min = Math.min(min, moved.minBill().minorUnits());
+                max = Math.max(max, moved.maxBill().minorUnits());
+            }
+        }
+
+        synchronized void removeAll(PatientReassignment moved) {
+            sum -= moved.billTotal().minorUnits();
+            count -= moved.billedPatients();
+            if (count <= 0) {
+                clear();
+            } else if (moved.minBill().minorUnits() <= min || moved.maxBill().minorUnits() >= max) {
+                extremesStale = true;
+            }
+        }
+
+        synchronized boolean hasStaleExtremes() {
+            return extremesStale && count > 0;
+        }
+
+        synchronized void reloadExtremes(String department, Function<String, long[]> extremes) {
+            if (extremesStale && count > 0) {
+                long[] fresh = extremes.apply(department);
+                min = fresh[0];
+                max = fresh[1];
+                extremesStale = false;
+            }
+        }
+
+        synchronized DepartmentBilling toBilling(String department) {
+            return count == 0
+                    ? new DepartmentBilling(department, Money.ofMinor(0), 0, null, null)
+                    : new DepartmentBilling(department, Money.ofMinor(sum), count, Money.ofMinor(min), Money.ofMinor(max));
+        }
+
+        synchronized boolean sameAs(Aggregate other) {
+            return count == other.count && sum == other.sum
+                    && (extremesStale || count == 0 || (min == other.min && max == other.max));
+        }
+
+        private void clear() {
+            sum = 0;
+            count = 0;
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            extremesStale = false;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return count == 0 ? "{sum=0, count=0}" : "{sum=" + Money.ofMinor(sum) + ", count=" + count
+                    + ", min=" + Money.ofMinor(min) + ", max=" + Money.ofMinor(max) + "}";
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.hospital.stats;
+
+/**
+ * A doctor and the number of patients currently assigned to them.
+ */
+public record DoctorLoad(long doctorId, String doctorName, String department, long patientCount) {
+}
@@ -0,0 +1,341 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.event.CommitSnapshot;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.event.StaffSnapshot;
+import org.example.hospital.model.DoctorPatientCount;
+import org.example.hospital.model.Role;
+import org.example.hospital.repo.SnapshotReader;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Live patient count of every doctor, kept in sorted sets ordered by load (overall and per department), so
+ * "doctors with more than N patients", the K busiest or least busy doctors and the least-loaded doctor of a
+ * department are range lookups instead of a GROUP BY over all patients.
+ * <p>
+ * Loaded with one aggregate query and then kept current from the patient, reassignment and staff change
+ * events; counts are tracked for all staff, so a staff member who becomes a doctor enters the index with
+ * their patients. A bulk change marks it stale, and the next lookup starts a reload in the background while it
+ * is still answered from the current index. Like {@link BillingAnalytics}, a periodic rebuild replaces it without
+ * blocking writers, replaying the changes seen during the query that it had not already counted.
+ */
+@Component
+public class DoctorWorkload {
+
+    private static final String LOAD_SQL =
+            "SELECT s.id, s.name, s.role, s.department, COUNT(p.id) " +
+                    "FROM staff s LEFT JOIN patients p ON p.assigned_doctor_id = s.id " +
+                    "GROUP BY s.id";
+
+    // Menos pacientes primero; a igual carga, el ID menor
+    private static final Comparator<DoctorLoad> BY_LOAD =
+            Comparator.comparingLong(DoctorLoad::patientCount).thenComparingLong(DoctorLoad::doctorId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnapshotReader snapshotReader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private final StaleRefresh refresh;
+
+    private Index index = new Index();
+    private volatile boolean loaded;
+    private volatile boolean built;
+    private long invalidations;
+    // Commits incluidos en el índice actual: sus eventos ya están contados
+    private CommitSnapshot basis;
+    // Cambios recibidos mientras se reconstruye; se reaplican sobre el índice nuevo antes del cambio.
+    private List<PendingChange> pending;
+
+    public DoctorWorkload(JdbcTemplate jdbcTemplate,
+                          SnapshotReader snapshotReader,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                          ApplicationEventPublisher events) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotReader = snapshotReader;
+        this.refresh = new StaleRefresh("doctor workload index", executor, events, this::rebuild);
+    }
+
+    /**
+     * @param minCount Exclusive lower bound on the number of patients.
+     * @return Doctors with more than {@code minCount} patients, busiest first. As with the SQL report, doctors
+     * without patients are never listed, even for a negative {@code minCount}.
+     */
+    public List<DoctorPatientCount> doctorsWithMoreThan(int minCount) {
+        return read(index -> {
+            NavigableSet<DoctorLoad> above = index.doctors.tailSet(
+                    new DoctorLoad(Long.MIN_VALUE, null, null, Math.max((long) minCount + 1, 1)), true);
+            List<DoctorPatientCount> result = new ArrayList<>(above.size());
+            for (DoctorLoad load : above.descendingSet()) {
+                result.add(new DoctorPatientCount(load.doctorId(), load.doctorName(), load.patientCount()));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @param department Only doctors of this department, or null for all.
+     * @param limit Maximum number of doctors.
+     * @param busiest true for the most patients first, false for the fewest first.
+     * @return Up to {@code limit} doctors in load order; equal loads are ordered by ID in the same direction.
+     */
+    public List<DoctorLoad> ranked(String department, int limit, boolean busiest) {
+        return read(index -> {
+            NavigableSet<DoctorLoad> doctors = index.doctors(department);
+            List<DoctorLoad> result = new ArrayList<>(Math.min(limit, doctors.size()));
+            Iterator<DoctorLoad> it = busiest ? doctors.descendingIterator() : doctors.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return The doctor of {@code department} with the fewest patients (the lowest ID on a tie),
+     * or empty if the department has no doctor.
+     */
+    public Optional<DoctorLoad> leastLoaded(String department) {
+        return read(index -> {
+            NavigableSet<DoctorLoad> doctors = index.doctors(department);
+            return doctors.isEmpty() ? Optional.empty() : Optional.of(doctors.first());
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Antes de que ResourceVersions renueve los ETags de las estadísticas
+    public void onPatientChanged(PatientChangedEvent event) {
+        Long from = event.before() == null ? null : event.before().doctorId();
+        Long to = event.after() == null ? null : event.after().doctorId();
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        apply(event.txid(), index -> {
+            index.adjust(from, -1);
+            index.adjust(to, 1);
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPatientsReassigned(PatientsReassignedEvent event) {
+        long moved = event.moved().patients();
+        apply(event.txid(), index -> {
+            index.adjust(event.from().id(), -moved);
+            index.adjust(event.to().id(), moved);
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStaffChanged(StaffChangedEvent event) {
+        if (event.after() != null) {
+            apply(event.txid(), index -> index.update(event.after()));
+        } else {
+            apply(event.txid(), index -> index.remove(event.before().id()));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            invalidations++;
+            loaded = false;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the index with a fresh one from a single aggregate query.
+     * Writers are not blocked: changes seen during the query, and not already counted by it, are replayed onto
+     * the new index.
+     */
+    @Scheduled(initialDelayString = "${hospital.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${hospital.stats.reconcile-interval-ms:300000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            doRebuild();
+        }
+    }
+
+    private void doRebuild() {
+        Lock write = lock.writeLock();
+        long invalidationsBefore;
+        write.lock();
+        try {
+            pending = new ArrayList<>();
+            invalidationsBefore = invalidations;
+        } finally {
+            write.unlock();
+        }
+        Index fresh = new Index();
+        CommitSnapshot snapshot;
+        try {
+            snapshot = snapshotReader.read(() -> jdbcTemplate.query(LOAD_SQL, rs -> {
+                fresh.put(Role.valueOf(rs.getString(3)),
+                        new DoctorLoad(rs.getLong(1), rs.getString(2), rs.getString(4), rs.getLong(5)));
+            }));
+        } catch (RuntimeException e) {
+            write.lock();
+            try {
+                pending = null;
+            } finally {
+                write.unlock();
+            }
+            throw e;
+        }
+        write.lock();
+        try {
+            for (PendingChange change : pending) {
+                if (!snapshot.includes(change.txid())) {
+                    change.change().accept(fresh);
+                }
+            }
+            pending = null;
+            index = fresh;
+            basis = snapshot;
+            built = true;
+            // Una carga masiva durante la consulta puede no estar incluida: seguir marcado como obsoleto
+            loaded = invalidations == invalidationsBefore;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Loads the index on first use; once there is one, a stale index keeps answering while it is rebuilt.
+     */
+    private <T> T read(Function<Index, T> lookup) {
+        if (!loaded) {
+            if (built) {
+                refresh.request();
+            } else {
+                rebuild(); // Aún no hay índice que consultar
+            }
+        }
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return lookup.apply(index);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    private void apply(long txid, Consumer<Index> change) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (basis != null && basis.includes(txid)) {
+                return; // La última reconstrucción ya contó este cambio
+            }
+            change.accept(index);
+            if (pending != null) {
+                pending.add(new PendingChange(txid, change));
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Every staff member's role and load, plus the doctors sorted by load. Loads are immutable: a change replaces
+     * the entry in every set it belongs to. Not thread-safe; guarded by the enclosing lock.
+     */
+    private static final class Index {
+
+        private final Map<Long, Member> staff = new HashMap<>();
+        private final TreeSet<DoctorLoad> doctors = new TreeSet<>(BY_LOAD);
+        private final Map<String, TreeSet<DoctorLoad>> byDepartment = new HashMap<>();
+
+        NavigableSet<DoctorLoad> doctors(String department) {
+            if (department == null) {
+                return doctors;
+            }
+            TreeSet<DoctorLoad> inDepartment = byDepartment.get(department);
+            return inDepartment == null ? new TreeSet<>(BY_LOAD) : inDepartment;
+        }
+
+        void put(Role role, DoctorLoad load) {
+            remove(load.doctorId());
+            staff.put(load.doctorId(), new Member(role, load));
+            if (role == Role.DOCTOR) {
+                doctors.add(load);
+                byDepartment.computeIfAbsent(load.department(), d -> new TreeSet<>(BY_LOAD)).add(load);
+            }
+        }
+
+        void remove(long id) {
+            Member member = staff.remove(id);
+            if (member != null && member.role() == Role.DOCTOR) {
+                doctors.remove(member.load());
+                TreeSet<DoctorLoad> inDepartment = byDepartment.get(member.load().department());
+                inDepartment.remove(member.load());
+                if (inDepartment.isEmpty()) {
+                    byDepartment.remove(member.load().department());
+                }
+            }
+        }
+
+        /**
+         * Records the staff member's current name, role and department, keeping their patient count.
+         */
+        void update(StaffSnapshot snapshot) {
+            Member member = staff.get(snapshot.id());
+            long patients = member == null ? 0 : member.load().patientCount();
+            put(snapshot.role(), new DoctorLoad(snapshot.id(), snapshot.name(), snapshot.department(), patients));
+        }
+
+        void adjust(Long id, long delta) {
+            Member member = id == null ? null : staff.get(id);
+            if (member == null) {
+                return; // Sin médico, o uno que aún no conocemos: lo corrige la siguiente reconstrucción
+            }
+            DoctorLoad load = member.load();
+            put(member.role(), new DoctorLoad(load.doctorId(), load.doctorName(), load.department(),
+                    load.patientCount() + delta));
+        }
+    }
+
+    private record Member(Role role, DoctorLoad load) {
+    }
+
+    private record PendingChange(long txid, Consumer<Index> change) {
+    }
+}
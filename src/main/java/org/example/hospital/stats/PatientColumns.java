@@ -0,0 +1,339 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.StaffSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Column-oriented copy of the billing-relevant part of {@code patients}: one primitive array per column,
+ * rows ordered by patient ID so a row is found by binary search.
+ * <p>
+ * Bills are {@code long} cents ({@link #NO_BILL} for none). Diagnoses, departments and doctors are
+ * dictionary-encoded as {@code int} codes ({@link #NONE} for none), with the doctor IDs themselves in a
+ * {@code long[]}. A patient's department is reached through its doctor, so a doctor moving department is a
+ * single array write. Deleted rows stay as tombstones until the next rebuild.
+ * <p>
+ * Not thread-safe: {@link BillingAnalytics} writes under a write lock and scans under a read lock.
+ */
+final class PatientColumns {
+
+    static final long NO_BILL = Long.MIN_VALUE;
+    static final int NONE = -1;
+    private static final int ANY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    // Filas mínimas por tarea del fork-join; por debajo no compensa repartir
+    private static final int SPLIT_ROWS = 32_768;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] billCents = new long[INITIAL_CAPACITY];
+    private int[] diagnosisCodes = new int[INITIAL_CAPACITY];
+    private int[] doctorCodes = new int[INITIAL_CAPACITY];
+    private boolean[] deleted = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<String> diagnoses = new ArrayList<>();
+    private final Map<String, Integer> diagnosisIndex = new HashMap<>();
+    private final List<String> departments = new ArrayList<>();
+    private final Map<String, Integer> departmentIndex = new HashMap<>();
+    private long[] doctorIds = new long[64];
+    private int[] doctorDepartments = new int[64];
+    private int doctorCount;
+    private final Map<Long, Integer> doctorIndex = new HashMap<>();
+
+    /**
+     * Adds the patient, or overwrites its row if it is already present.
+     */
+    void upsert(PatientSnapshot patient) {
+        int row = size > 0 && patient.id() > ids[size - 1] ? -size - 1 : find(patient.id());
+        if (row < 0) {
+            row = insertAt(-row - 1, patient.id());
+        }
+        billCents[row] = patient.billAmount() == null ? NO_BILL : patient.billAmount().minorUnits();
+        diagnosisCodes[row] = encode(diagnoses, diagnosisIndex, patient.diagnosis());
+        doctorCodes[row] = doctor(patient.doctorId(), patient.department());
+        deleted[row] = false;
+    }
+
+    void remove(long id) {
+        int row = find(id);
+        if (row >= 0) {
+            deleted[row] = true;
+        }
+    }
+
+    /**
+     * Moves every patient of doctor {@code fromId} to {@code to}.
+     */
+    void reassign(long fromId, StaffSnapshot to) {
+        Integer from = doctorIndex.get(fromId);
+        if (from == null) {
+            return;
+        }
+        int target = doctor(to.id(), to.department());
+        for (int row = 0; row < size; row++) {
+            if (doctorCodes[row] == from) {
+                doctorCodes[row] = target;
+            }
+        }
+    }
+
+    /**
+     * Records the doctor's current department for all of their patients.
+     */
+    void relabel(StaffSnapshot doctor) {
+        Integer code = doctorIndex.get(doctor.id());
+        if (code != null) {
+            doctorDepartments[code] = encode(departments, departmentIndex, doctor.department());
+        }
+    }
+
+    /**
+     * @return The filter with its values translated to codes and cents, or null if it names a department,
+     * diagnosis or doctor no patient ever had, i.e. nothing can match.
+     */
+    Selection select(BillFilter filter, boolean billsOnly) {
+        int department = code(departmentIndex, filter.department());
+        int diagnosis = code(diagnosisIndex, filter.diagnosis());
+        int doctor = code(doctorIndex, filter.doctorId());
+        if (department == NONE || diagnosis == NONE || doctor == NONE) {
+            return null;
+        }
+        long min = filter.minBill() == null ? NO_BILL + 1 : cents(filter.minBill(), RoundingMode.CEILING);
+        long max = filter.maxBill() == null ? Long.MAX_VALUE : cents(filter.maxBill(), RoundingMode.FLOOR);
+        return new Selection(department, diagnosis, doctor, min, max,
+                billsOnly || filter.minBill() != null || filter.maxBill() != null);
+    }
+
+    /**
+     * Scans every selected row in parallel on the common fork-join pool.
+     * @param grouping Group of each row, in [0, groups), or a negative value to leave the row out.
+     * @param groups Number of groups.
+     */
+    Aggregates aggregate(Selection selection, Grouping grouping, int groups) {
+        // Cada tarea tiene sus propios acumuladores: con muchos grupos, tareas más grandes
+        int splitRows = Math.max(SPLIT_ROWS, groups * 8);
+        return ForkJoinPool.commonPool().invoke(new ScanTask(selection, grouping, groups, splitRows, 0, size));
+    }
+
+    /**
+     * @return Number of groups of the dimension; group 0 holds the patients without a value.
+     */
+    int groups(BillDimension dimension) {
+        return 1 + switch (dimension) {
+            case DEPARTMENT -> departments.size();
+            case DIAGNOSIS -> diagnoses.size();
+            case DOCTOR -> doctorCount;
+        };
+    }
+
+    Grouping grouping(BillDimension dimension) {
+        return switch (dimension) {
+            case DEPARTMENT -> row -> department(row) + 1;
+            case DIAGNOSIS -> row -> diagnosisCodes[row] + 1;
+            case DOCTOR -> row -> doctorCodes[row] + 1;
+        };
+    }
+
+    /**
+     * @return The value behind group {@code group} of the dimension, or null for group 0.
+     */
+    Object key(BillDimension dimension, int group) {
+        if (group == 0) {
+            return null;
+        }
+        return switch (dimension) {
+            case DEPARTMENT -> departments.get(group - 1);
+            case DIAGNOSIS -> diagnoses.get(group - 1);
+            case DOCTOR -> doctorIds[group - 1];
+        };
+    }
+
+    long bill(int row) {
+        return billCents[row];
+    }
+
+    private static long cents(BigDecimal bound, RoundingMode rounding) {
+        return bound.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    private int department(int row) {
+        int doctor = doctorCodes[row];
+        return doctor == NONE ? NONE : doctorDepartments[doctor];
+    }
+
+    private boolean matches(Selection selection, int row) {
+        if (deleted[row]) {
+            return false;
+        }
+        long bill = billCents[row];
+        return (selection.department() == ANY || department(row) == selection.department())
+                && (selection.diagnosis() == ANY || diagnosisCodes[row] == selection.diagnosis())
+                && (selection.doctor() == ANY || doctorCodes[row] == selection.doctor())
+                && (bill == NO_BILL ? !selection.billsOnly() : bill >= selection.minCents() && bill <= selection.maxCents());
+    }
+
+    private int find(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private int insertAt(int row, long id) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            billCents = Arrays.copyOf(billCents, capacity);
+            diagnosisCodes = Arrays.copyOf(diagnosisCodes, capacity);
+            doctorCodes = Arrays.copyOf(doctorCodes, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+        if (row < size) {
+            // Solo si llega un ID menor que el último (commits fuera de orden): desplazar es O(n) pero raro
+            System.arraycopy(ids, row, ids, row + 1, size - row);
+            System.arraycopy(billCents, row, billCents, row + 1, size - row);
+            System.arraycopy(diagnosisCodes, row, diagnosisCodes, row + 1, size - row);
+            System.arraycopy(doctorCodes, row, doctorCodes, row + 1, size - row);
+            System.arraycopy(deleted, row, deleted, row + 1, size - row);
+        }
+        ids[row] = id;
+        size++;
+        return row;
+    }
+
+    private int doctor(Long id, String department) {
+        if (id == null) {
+            return NONE;
+        }
+        Integer code = doctorIndex.get(id);
+        if (code == null) {
+            if (doctorCount == doctorIds.length) {
+                doctorIds = Arrays.copyOf(doctorIds, doctorCount * 2);
+                doctorDepartments = Arrays.copyOf(doctorDepartments, doctorCount * 2);
+            }
+            code = doctorCount++;
+            doctorIds[code] = id;
+            doctorIndex.put(id, code);
+        }
+        doctorDepartments[code] = encode(departments, departmentIndex, department);
+        return code;
+    }
+
+    private static int encode(List<String> values, Map<String, Integer> index, String value) {
+        if (value == null) {
+            return NONE;
+        }
+        return index.computeIfAbsent(value, v -> {
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+
+    private static <T> int code(Map<T, Integer> index, T value) {
+        return value == null ? ANY : index.getOrDefault(value, NONE);
+    }
+
+    /**
+     * A report filter resolved against this snapshot's dictionaries.
+     */
+    record Selection(int department, int diagnosis, int doctor, long minCents, long maxCents, boolean billsOnly) {
+    }
+
+    @FunctionalInterface
+    interface Grouping {
+        int group(int row);
+    }
+
+    /**
+     * Per-group patient count, billed count, sum, min and max (in cents).
+     */
+    static final class Aggregates {
+
+        final long[] patients;
+        final long[] billed;
+        final long[] sum;
+        final long[] min;
+        final long[] max;
+
+        Aggregates(int groups) {
+            patients = new long[groups];
+            billed = new long[groups];
+            sum = new long[groups];
+            min = new long[groups];
+            max = new long[groups];
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, Long.MIN_VALUE);
+        }
+
+        private void add(int group, long bill) {
+            patients[group]++;
+            if (bill != NO_BILL) {
+                billed[group]++;
+                sum[group] += bill;
+                min[group] = Math.min(min[group], bill);
+                max[group] = Math.max(max[group], bill);
+            }
+        }
+
+        private Aggregates merge(Aggregates other) {
+            for (int group = 0; group < patients.length; group++) {
+                patients[group] += other.patients[group];
+                billed[group] += other.billed[group];
+                sum[group] += other.sum[group];
+                min[group] = Math.min(min[group], other.min[group]);
+                max[group] = Math.max(max[group], other.max[group]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Splits the row range in halves until it is small enough, aggregates each half into its own
+     * {@link Aggregates} and merges them on the way back.
+     */
+    private final class ScanTask extends RecursiveTask<Aggregates> {
+
+        private final Selection selection;
+        private final Grouping grouping;
+        private final int groups;
+        private final int splitRows;
+        private final int from;
+        private final int to;
+
+        ScanTask(Selection selection, Grouping grouping, int groups, int splitRows, int from, int to) {
+            this.selection = selection;
+            this.grouping = grouping;
+            this.groups = groups;
+            this.splitRows = splitRows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregates compute() {
+            if (to - from <= splitRows) {
+                Aggregates aggregates = new Aggregates(groups);
+                for (int row = from; row < to; row++) {
+                    if (matches(selection, row)) {
+                        int group = grouping.group(row);
+                        if (group >= 0) {
+                            aggregates.add(group, billCents[row]);
+                        }
+                    }
+                }
+                return aggregates;
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(selection, grouping, groups, splitRows, from, middle);
+            left.fork();
+            Aggregates right = new ScanTask(selection, grouping, groups, splitRows, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.event.StatsRefreshedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds a stale in-memory structure in the background, at most one rebuild queued or running at a time, so
+ * the request that notices it is stale keeps reading the previous copy instead of waiting for a full reload.
+ * A completed rebuild publishes a {@link StatsRefreshedEvent}, so responses cached from the stale copy are not
+ * served again under their old tag.
+ */
+final class StaleRefresh {
+
+    private static final Logger log = LoggerFactory.getLogger(StaleRefresh.class);
+
+    private final String name;
+    private final Executor executor;
+    private final ApplicationEventPublisher events;
+    private final Runnable rebuild;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param name What is rebuilt, for the log.
+     * @param rebuild Reloads the structure; it stays marked stale if the reload did not catch up.
+     */
+    StaleRefresh(String name, Executor executor, ApplicationEventPublisher events, Runnable rebuild) {
+        this.name = name;
+        this.executor = executor;
+        this.events = events;
+        this.rebuild = rebuild;
+    }
+
+    /**
+     * Starts a rebuild in the background unless one is already queued or running.
+     */
+    void request() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false); // Se reintenta en la siguiente lectura
+            log.warn("Could not schedule a rebuild of the {}", name, e);
+        }
+    }
+
+    private void run() {
+        try {
+            rebuild.run();
+            events.publishEvent(new StatsRefreshedEvent(name));
+        } catch (RuntimeException e) {
+            // Se sigue sirviendo la copia anterior; la siguiente lectura lo vuelve a intentar
+            log.warn("Background rebuild of the {} failed", name, e);
+        } finally {
+            scheduled.set(false);
+        }
+    }
+}
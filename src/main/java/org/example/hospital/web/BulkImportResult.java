@@ -0,0 +1,8 @@
+package org.example.hospital.web;
+
+/**
+ * Response body for bulk imports.
+ * @param imported Number of rows stored.
+ */
+public record BulkImportResult(long imported) {
+}
@@ -0,0 +1,43 @@
+package org.example.hospital.web;
+
+import org.example.hospital.model.Patient;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A patient listing with doctors referenced by ID and written once in a side table, instead of repeated
+ * inside every patient (see {@link ProjectionSerializers.CompactPatientsSerializer}).
+ */
+record CompactPatients(List<Patient> patients) {
+
+    /** Value of the {@code view} request parameter of the patient listings. */
+    enum View {
+        /** Each patient with its full assigned doctor (the default). */
+        FULL,
+        /** {@link CompactPatients}. */
+        COMPACT;
+
+        /**
+         * @param value View name in any case, or null for the default.
+         * @return The view, or null if there is none with that name.
+         */
+        static View parse(String value) {
+            if (value == null) {
+                return FULL;
+            }
+            try {
+                return valueOf(value.strip().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return The response body for these patients in this view.
+         */
+        Object of(List<Patient> patients) {
+            return this == COMPACT ? new CompactPatients(patients) : patients;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.hospital.web;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shared helpers for keyset (cursor) pagination on collection endpoints: {@code ?after=<id>&limit=<n>}.
+ */
+final class KeysetPaging {
+
+    /** Header carrying the cursor for the next page; absent on the last page. */
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private KeysetPaging() {
+    }
+
+    /**
+     * @return true if the request asked for a page rather than the legacy full listing.
+     */
+    static boolean isPaged(Long after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    static long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Clamps the requested page size to {@code [1, MAX_LIMIT]}, defaulting to {@link #DEFAULT_LIMIT}.
+     */
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    static Limit of(int pageSize) {
+        return Limit.of(pageSize);
+    }
+
+    /**
+     * Wraps a page in a 200 OK response, adding the next cursor when the page came back full.
+     */
+    static <T> ResponseEntity<List<T>> page(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        return ok(rows, pageSize, idOf).body(rows);
+    }
+
+    /**
+     * Like {@link #page(List, int, Function)}, with the page rendered by {@code body} (e.g. a compact view).
+     */
+    static <T> ResponseEntity<Object> page(List<T> rows, int pageSize, Function<T, Long> idOf,
+                                           Function<List<T>, Object> body) {
+        return ok(rows, pageSize, idOf).body(body.apply(rows));
+    }
+
+    private static <T> ResponseEntity.BodyBuilder ok(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            response.header(NEXT_AFTER_HEADER, String.valueOf(idOf.apply(rows.get(rows.size() - 1))));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.hospital.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+
+/**
+ * JSON Merge Patch (RFC 7386) for the flat entity fields: every member present in the patch replaces the
+ * field, {@code null} clears it, absent members are left untouched. Object-valued members (references to
+ * other entities) must be taken out of the patch with {@link #take} and resolved by the caller.
+ */
+final class MergePatch {
+
+    static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    /**
+     * Removes a member from the patch.
+     * @return The member's value ({@code NullNode} if explicitly null), or null if the patch does not mention it.
+     */
+    static JsonNode take(ObjectNode patch, String field) {
+        return patch.remove(field);
+    }
+
+    /**
+     * Applies the remaining members of {@code patch} onto {@code target} in place.
+     * The {@code id} member, if any, is ignored: a patch never changes the identity of the resource.
+     * @throws IOException if a member has the wrong type for its field.
+     */
+    static <T> T apply(ObjectMapper objectMapper, T target, ObjectNode patch) throws IOException {
+        patch.remove("id");
+        return objectMapper.readerForUpdating(target).readValue(patch);
+    }
+}
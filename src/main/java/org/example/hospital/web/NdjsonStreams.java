@@ -0,0 +1,50 @@
+package org.example.hospital.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.hospital.config.ReadRouting;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds newline-delimited JSON (NDJSON) responses that write each row as soon as it is produced.
+ */
+final class NdjsonStreams {
+
+    private NdjsonStreams() {
+    }
+
+    /**
+     * @param objectMapper The application's mapper, so rows serialize exactly like the JSON endpoints.
+     * @param source Pushes every row into the given consumer (e.g. a JDBC cursor).
+     * @return A 200 OK response with content type {@code application/x-ndjson}.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> response(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        // Sin flush por fila: el generador vacía su buffer solo cuando se llena.
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // El cuerpo se escribe en otro hilo: se lleva el enrutado de lecturas (réplica o primario) de la petición
+        boolean primary = ReadRouting.isPrimaryRequired();
+        StreamingResponseBody body = out -> ReadRouting.run(primary, () -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // Each row ends with its own '\n', so no separator between root values.
+                generator.setRootValueSeparator(null);
+                source.accept(row -> {
+                    try {
+                        writer.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
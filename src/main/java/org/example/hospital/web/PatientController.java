@@ -1,14 +1,47 @@
 package org.example.hospital.web;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.hospital.config.ReadRouting;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.model.DepartmentAverageBill;
 import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.CursorStreamRepository;
+import org.example.hospital.repo.PatientBulkLoader;
 import org.example.hospital.repo.PatientRepository;
+import org.example.hospital.repo.StaffRepository;
+import org.example.hospital.stats.BillDimension;
+import org.example.hospital.stats.BillDistribution;
+import org.example.hospital.stats.BillFilter;
+import org.example.hospital.stats.BillingAnalytics;
+import org.example.hospital.stats.DepartmentBillingStats;
+import org.example.hospital.stats.DoctorWorkload;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus; // Importar HttpStatus para @ResponseStatus
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity; // Importar ResponseEntity
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional; // Importar Optional
+import java.util.function.Consumer;
 import java.util.stream.Collectors; // Necesario si usas StreamSupport para getAllPatients
 import java.util.stream.StreamSupport; // Necesario si usas StreamSupport para getAllPatients
 
@@ -19,47 +52,216 @@ import java.util.stream.StreamSupport; // Necesario si usas StreamSupport para g
 @RequestMapping("/patients")
 public class PatientController {
 
+    /** Header carrying the offset of the next search page; absent on the last page. */
+    static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+    private static final int SEARCH_DEFAULT_LIMIT = 20;
+    private static final int SEARCH_MAX_LIMIT = 100;
+    private static final int SEARCH_MAX_OFFSET = 1000;
+    private static final int SEARCH_MAX_LENGTH = 200;
+    private static final int HISTOGRAM_DEFAULT_BUCKETS = 20;
+    private static final int HISTOGRAM_MAX_BUCKETS = 200;
+
     private final PatientRepository patientRepository; // Usar final es buena práctica con @Autowired
+    private final StaffRepository staffRepository;
+    private final CursorStreamRepository cursorStreamRepository;
+    private final PatientBulkLoader patientBulkLoader;
+    private final DepartmentBillingStats departmentBillingStats;
+    private final BillDistribution billDistribution;
+    private final BillingAnalytics billingAnalytics;
+    private final DoctorWorkload doctorWorkload;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final SerializedResponseCache responseCache;
 
     @Autowired
-    public PatientController(PatientRepository patientRepository) {
+    public PatientController(PatientRepository patientRepository,
+                             StaffRepository staffRepository,
+                             CursorStreamRepository cursorStreamRepository,
+                             PatientBulkLoader patientBulkLoader,
+                             DepartmentBillingStats departmentBillingStats,
+                             BillDistribution billDistribution,
+                             BillingAnalytics billingAnalytics,
+                             DoctorWorkload doctorWorkload,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             ResourceVersions resourceVersions,
+                             SerializedResponseCache responseCache) {
         this.patientRepository = patientRepository;
+        this.staffRepository = staffRepository;
+        this.cursorStreamRepository = cursorStreamRepository;
+        this.patientBulkLoader = patientBulkLoader;
+        this.departmentBillingStats = departmentBillingStats;
+        this.billDistribution = billDistribution;
+        this.billingAnalytics = billingAnalytics;
+        this.doctorWorkload = doctorWorkload;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.resourceVersions = resourceVersions;
+        this.responseCache = responseCache;
     }
 
     /**
      * Registers a new patient.
      * Handles POST requests to /patients.
      * @param patient The Patient object to be registered (from request body).
-     * @return The registered Patient object (with generated ID), and HTTP status 201 Created.
+     * @return The registered Patient object (with generated ID) and HTTP status 201 Created,
+     * or 400 Bad Request if the referenced doctor does not exist.
      */
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED) // Indica que el status por defecto será 201 Created
-    public Patient createPatient(@RequestBody Patient patient) {
-        return patientRepository.save(patient);
+    public ResponseEntity<Patient> createPatient(@RequestBody Patient patient) {
+        if (hasDoctorReference(patient)) {
+            Optional<Staff> doctor = staffRepository.findById(patient.getAssignedDoctor().getId());
+            if (doctor.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            patient.setAssignedDoctor(doctor.get()); // Doctor completo, para la respuesta y los listeners
+        }
+        Patient saved = patientRepository.save(patient);
+        eventPublisher.publishEvent(PatientChangedEvent.created(PatientSnapshot.of(saved)));
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    /**
+     * Imports many patients at once from a JSON array.
+     * Handles POST requests to /patients/bulk with Content-Type application/json.
+     * Each element has the same shape as the POST /patients body; the doctor is referenced by
+     * {@code assignedDoctor.id}. The array is parsed incrementally and written in chunked COPY batches.
+     * Database failures other than a rejected row (connection lost, timeout, ...) are server errors, not 400.
+     * @param body The request body stream.
+     * @return The number of imported patients (201 Created), or 400 Bad Request if any row is invalid.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResult> importPatientsJson(InputStream body) throws IOException {
+        // readValues desenvuelve el array raíz y deserializa un elemento cada vez.
+        try (MappingIterator<Patient> patients = objectMapper.readerFor(Patient.class).readValues(body)) {
+            long imported = patientBulkLoader.copyPatients(patients);
+            eventPublisher.publishEvent(new PatientsBulkChangedEvent(imported));
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportResult(imported));
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataAccessException e) {
+            return badRowOrRethrow(e);
+        }
     }
 
     /**
-     * Returns all patients.
-     * Handles GET requests to /patients.
-     * @return A list of all Patient objects.
+     * Imports many patients at once from CSV.
+     * Handles POST requests to /patients/bulk with Content-Type text/csv.
+     * The first line is a header; columns are name, diagnosis, bill_amount, assigned_doctor_id.
+     * The body is streamed straight into PostgreSQL COPY without being buffered.
+     * As with JSON, only rows the database rejects as invalid give 400.
+     * @param body The request body stream.
+     * @return The number of imported patients (201 Created), or 400 Bad Request if any row is invalid.
+     */
+    @PostMapping(path = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResult> importPatientsCsv(InputStream body) {
+        try {
+            long imported = patientBulkLoader.copyCsv(body);
+            eventPublisher.publishEvent(new PatientsBulkChangedEvent(imported));
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportResult(imported));
+        } catch (DataAccessException e) {
+            return badRowOrRethrow(e);
+        }
+    }
+
+    /**
+     * Returns all patients, or one keyset page of them.
+     * Handles GET requests to /patients and /patients?after={id}&limit={n}.
+     * When either parameter is present, returns up to {@code limit} patients with an ID greater than
+     * {@code after}, and the cursor for the next page in the X-Next-After header.
+     * The full listing carries an ETag and is served from the serialized response cache while unchanged.
+     * With {@code view=compact}, doctors are referenced by ID and listed once (see {@link CompactPatients}).
+     * @param after Return patients with an ID strictly greater than this one (default 0).
+     * @param limit Page size (default 100, max 1000).
+     * @param view full (default) or compact.
+     * @param request The current request, for If-None-Match.
+     * @return A list of Patient objects ordered by ID when paged, 304 Not Modified, or 400 Bad Request
+     * for an unknown view.
      */
     @GetMapping
-    public List<Patient> getAllPatients() {
+    public ResponseEntity<?> getAllPatients(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String view,
+                                            WebRequest request) {
+        CompactPatients.View patientView = CompactPatients.View.parse(view);
+        if (patientView == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (KeysetPaging.isPaged(after, limit)) {
+            int pageSize = KeysetPaging.pageSize(limit);
+            List<Patient> page = patientRepository.findByIdGreaterThanOrderByIdAsc(
+                    KeysetPaging.cursor(after), KeysetPaging.of(pageSize));
+            return KeysetPaging.page(page, pageSize, Patient::getId, patientView::of);
+        }
         // Converting Iterable to List for consistent return type
-        return StreamSupport.stream(patientRepository.findAll().spliterator(), false)
-                .collect(Collectors.toList());
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                patientView.of(StreamSupport.stream(patientRepository.findAll().spliterator(), false)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * Streams all patients as newline-delimited JSON.
+     * Handles GET requests to /patients with {@code Accept: application/x-ndjson}.
+     * Rows are read through a forward-only JDBC cursor and written as they arrive, so memory use stays flat.
+     * @return A streaming response with one Patient object per line, ordered by ID.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPatients() {
+        return NdjsonStreams.response(objectMapper, cursorStreamRepository::streamPatients);
+    }
+
+    /**
+     * Searches patients by name and diagnosis, best match first.
+     * Handles GET requests to /patients/search?q={text}[&limit={n}][&offset={k}].
+     * Matching is by trigram word similarity, so prefixes ("smi") and small typos ("arrythmia") match too.
+     * When the page comes back full, the offset of the next page is returned in the X-Next-Offset header.
+     * @param q The search text (1-200 characters).
+     * @param limit Page size (default 20, max 100).
+     * @param offset Number of results to skip (default 0, max 1000).
+     * @return A ranked list of patients, or 400 Bad Request for an empty or too long query or an invalid offset.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Patient>> searchPatients(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(defaultValue = "0") int offset) {
+        String text = q.strip();
+        if (text.isEmpty() || text.length() > SEARCH_MAX_LENGTH || offset < 0 || offset > SEARCH_MAX_OFFSET) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = limit == null ? SEARCH_DEFAULT_LIMIT : Math.max(1, Math.min(limit, SEARCH_MAX_LIMIT));
+        List<Patient> page = patientRepository.searchPatients(text, pageSize, offset);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_OFFSET_HEADER, String.valueOf(offset + pageSize));
+        }
+        return response.body(page);
     }
 
     /**
      * Returns a patient by ID.
      * Handles GET requests to /patients/{id}.
+     * The ETag combines the patient's and its doctor's versions. If the client's If-None-Match matches the
+     * tag last served for this ID, the answer is 304 Not Modified without querying the database.
      * @param id The ID of the patient to retrieve.
-     * @return ResponseEntity with Patient object if found (200 OK), or 404 Not Found.
+     * @param request The current request, for If-None-Match.
+     * @return ResponseEntity with Patient object if found (200 OK), 304 Not Modified, or 404 Not Found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
-        Optional<Patient> patient = patientRepository.findById(id);
-        return patient.map(ResponseEntity::ok) // Si el paciente está presente, retorna 200 OK con el paciente
+    public ResponseEntity<Patient> getPatientById(@PathVariable Long id, WebRequest request) {
+        String knownTag = resourceVersions.knownPatientTag(id);
+        if (knownTag != null && ResourceVersions.isNotModified(request, knownTag)) {
+            return ResourceVersions.notModified(knownTag);
+        }
+        long generation = resourceVersions.patientGeneration();
+        // Del primario: la etiqueta queda recordada, y una réplica atrasada la calcularía sobre datos viejos
+        Optional<Patient> patient = ReadRouting.fromPrimary(() -> patientRepository.findById(id));
+        return patient.map(found -> { // Si el paciente está presente, retorna 200 OK con el paciente
+                    String tag = resourceVersions.patientTag(found, generation);
+                    return ResourceVersions.isNotModified(request, tag)
+                            ? ResourceVersions.<Patient>notModified(tag)
+                            : ResponseEntity.ok().eTag(tag).body(found);
+                })
                 .orElseGet(() -> ResponseEntity.notFound().build()); // Si no está presente, retorna 404 Not Found
     }
 
@@ -68,27 +270,89 @@ public class PatientController {
      * Handles PUT requests to /patients/{id}.
      * @param id The ID of the patient to update.
      * @param patientDetails The updated patient details (from request body).
-     * @return ResponseEntity with the updated Patient object (200 OK), or 404 Not Found if ID not found.
+     * @return ResponseEntity with the updated Patient object (200 OK), 404 Not Found if ID not found,
+     * 400 Bad Request if the referenced doctor does not exist, or 409 Conflict if another update committed first.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Patient> updatePatient(@PathVariable Long id, @RequestBody Patient patientDetails) {
         return patientRepository.findById(id) // Busca el paciente existente por ID
                 .map(patient -> { // Si lo encuentra, actualiza sus propiedades
+                    PatientSnapshot before = PatientSnapshot.of(patient); // Estado previo, antes de modificar la entidad
+                    // Asegúrate de que assignedDoctor no sea nulo si no lo vas a cambiar,
+                    // o de que el frontend envíe el ID del doctor
+                    if (hasDoctorReference(patientDetails)) {
+                        Optional<Staff> doctor = staffRepository.findById(patientDetails.getAssignedDoctor().getId());
+                        if (doctor.isEmpty()) {
+                            return ResponseEntity.badRequest().<Patient>build();
+                        }
+                        patient.setAssignedDoctor(doctor.get());
+                    }
                     patient.setName(patientDetails.getName());
                     patient.setDiagnosis(patientDetails.getDiagnosis());
                     patient.setBillAmount(patientDetails.getBillAmount());
-                    // Asegúrate de que assignedDoctor no sea nulo si no lo vas a cambiar,
-                    // o de que el frontend envíe el ID del doctor
-                    if (patientDetails.getAssignedDoctor() != null && patientDetails.getAssignedDoctor().getId() != null) {
-                        // Aquí deberías buscar el doctor por su ID para asegurarte de que existe
-                        // Para simplificar, asumimos que el ID del doctor enviado en patientDetails es válido
-                        // En una app real, buscarías el doctorRepository.findById()
-                        patient.setAssignedDoctor(patientDetails.getAssignedDoctor());
+                    Patient saved;
+                    try {
+                        saved = patientRepository.save(patient);
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<Patient>build();
                     }
-                    return ResponseEntity.ok(patientRepository.save(patient)); // Guarda y retorna el paciente actualizado con 200 OK
+                    eventPublisher.publishEvent(PatientChangedEvent.updated(before, PatientSnapshot.of(saved)));
+                    return ResponseEntity.ok(saved); // Retorna el paciente actualizado con 200 OK
                 }).orElseGet(() -> ResponseEntity.notFound().build()); // Si no lo encuentra, retorna 404 Not Found
     }
 
+    /**
+     * Partially updates a patient with JSON Merge Patch semantics.
+     * Handles PATCH requests to /patients/{id} (Content-Type application/merge-patch+json or application/json).
+     * Only the members present in the body change; {@code null} clears a field. {@code assignedDoctor} takes
+     * {@code {"id": ...}} or null. The UPDATE sets only the changed columns and checks the entity version.
+     * @param id The ID of the patient to update.
+     * @param patch The merge patch document.
+     * @param request The current request, for an optional If-Match with the ETag the client last saw.
+     * @return ResponseEntity with the updated Patient and its new ETag (200 OK), 404 Not Found,
+     * 400 Bad Request for an invalid patch or unknown doctor, 412 Precondition Failed if If-Match is stale,
+     * or 409 Conflict if another update committed first.
+     */
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Patient> patchPatient(@PathVariable Long id, @RequestBody ObjectNode patch, WebRequest request) {
+        Optional<Patient> found = patientRepository.findById(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Patient patient = found.get();
+        if (ResourceVersions.isPreconditionFailed(request, ResourceVersions.tagOf(patient))) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ResourceVersions.tagOf(patient)).build();
+        }
+        PatientSnapshot before = PatientSnapshot.of(patient);
+        JsonNode doctorRef = MergePatch.take(patch, "assignedDoctor");
+        Staff doctor = patient.getAssignedDoctor();
+        if (doctorRef != null && !doctorRef.isNull()) {
+            JsonNode doctorId = doctorRef.get("id");
+            Optional<Staff> resolved = doctorId != null && doctorId.canConvertToLong()
+                    ? staffRepository.findById(doctorId.asLong()) : Optional.empty();
+            if (resolved.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            doctor = resolved.get();
+        } else if (doctorRef != null) {
+            doctor = null; // "assignedDoctor": null desasigna al doctor
+        }
+        try {
+            MergePatch.apply(objectMapper, patient, patch);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        patient.setAssignedDoctor(doctor);
+        Patient saved;
+        try {
+            saved = patientRepository.save(patient);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        eventPublisher.publishEvent(PatientChangedEvent.updated(before, PatientSnapshot.of(saved)));
+        return ResponseEntity.ok().eTag(ResourceVersions.tagOf(saved)).body(saved);
+    }
+
     /**
      * Deletes a patient by ID.
      * Handles DELETE requests to /patients/{id}.
@@ -97,8 +361,10 @@ public class PatientController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePatient(@PathVariable Long id) {
-        if (patientRepository.existsById(id)) { // Verifica si el paciente existe
-            patientRepository.deleteById(id); // Elimínalo
+        Optional<Patient> patient = patientRepository.findById(id); // Verifica si el paciente existe
+        if (patient.isPresent()) {
+            patientRepository.delete(patient.get()); // Elimínalo
+            eventPublisher.publishEvent(PatientChangedEvent.deleted(PatientSnapshot.of(patient.get())));
             return ResponseEntity.noContent().build(); // Retorna 204 No Content (éxito sin contenido)
         } else {
             return ResponseEntity.notFound().build(); // Retorna 404 Not Found
@@ -107,43 +373,191 @@ public class PatientController {
 
     /**
      * Returns patients assigned to a specific doctor.
-     * Handles GET requests to /patients/for-doctor?doctorId={id}.
+     * Handles GET requests to /patients/for-doctor?doctorId={id}[&view={full|compact}].
      * @param doctorId The ID of the doctor.
-     * @return A list of patients assigned to the specified doctor.
+     * @param view full (default) or compact, where the doctor is written once instead of in every patient.
+     * @return A list of patients assigned to the specified doctor, or 400 Bad Request for an unknown view.
      */
     @GetMapping("/for-doctor")
-    public List<Patient> getPatientsForDoctor(@RequestParam Long doctorId) {
-        return patientRepository.findPatientsForDoctor(doctorId);
+    public ResponseEntity<Object> getPatientsForDoctor(@RequestParam Long doctorId,
+                                                       @RequestParam(required = false) String view) {
+        CompactPatients.View patientView = CompactPatients.View.parse(view);
+        if (patientView == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(patientView.of(patientRepository.findPatientsForDoctor(doctorId)));
     }
 
     /**
-     * Returns patients with a bill amount above the average.
-     * Handles GET requests to /patients/above-avg-bill.
-     * @return A list of patients whose bill amount is above the average.
+     * Returns patients with a bill amount above the average, or above a given percentile.
+     * Handles GET requests to /patients/above-avg-bill[?percentile={p}][&after={id}&limit={n}].
+     * The threshold comes from the in-memory bill distribution (exact mean, approximate percentile),
+     * so the query never recomputes AVG over the whole table. Paging works as in GET /patients; the
+     * unpaged listing is cached and conditional like GET /patients, and {@code view} works as there.
+     * @param percentile Optional percentile in (0, 100); when present, replaces the average as threshold.
+     * @param after Return patients with an ID strictly greater than this one (default 0).
+     * @param limit Page size (default 100, max 1000).
+     * @param view full (default) or compact.
+     * @param request The current request, for If-None-Match.
+     * @return A list of patients whose bill amount is above the threshold, ordered by ID, 304 Not Modified,
+     * or 400 Bad Request if the percentile is out of range or the view unknown.
      */
     @GetMapping("/above-avg-bill")
-    public List<Patient> getPatientsAboveAverageBill() {
-        return patientRepository.patientsAboveAvgBill();
+    public ResponseEntity<?> getPatientsAboveAverageBill(@RequestParam(required = false) Double percentile,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String view,
+                                                         WebRequest request) {
+        CompactPatients.View patientView = CompactPatients.View.parse(view);
+        if (!isValidPercentile(percentile) || patientView == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (KeysetPaging.isPaged(after, limit)) {
+            BigDecimal threshold = billThreshold(percentile);
+            if (threshold == null) {
+                // Sin facturas no hay nadie por encima del umbral
+                return ResponseEntity.ok(patientView.of(List.of()));
+            }
+            int pageSize = KeysetPaging.pageSize(limit);
+            List<Patient> page = patientRepository.patientsWithBillAbove(
+                    threshold, KeysetPaging.cursor(after), pageSize);
+            return KeysetPaging.page(page, pageSize, Patient::getId, patientView::of);
+        }
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () -> {
+            BigDecimal threshold = billThreshold(percentile);
+            return patientView.of(threshold == null ? List.of() : patientRepository.patientsWithBillAbove(threshold));
+        });
+    }
+
+    /**
+     * Streams patients with a bill amount above the average (or a percentile) as newline-delimited JSON.
+     * Handles GET requests to /patients/above-avg-bill with {@code Accept: application/x-ndjson}.
+     * @param percentile Optional percentile in (0, 100); when present, replaces the average as threshold.
+     * @return A streaming response with one Patient object per line, ordered by ID,
+     * or 400 Bad Request if the percentile is out of range.
+     */
+    @GetMapping(path = "/above-avg-bill", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPatientsAboveAverageBill(@RequestParam(required = false) Double percentile) {
+        if (!isValidPercentile(percentile)) {
+            return ResponseEntity.badRequest().build();
+        }
+        BigDecimal threshold = billThreshold(percentile);
+        return NdjsonStreams.response(objectMapper, (Consumer<Patient> consumer) -> {
+            if (threshold != null) {
+                cursorStreamRepository.streamPatientsWithBillAbove(threshold, consumer);
+            }
+        });
     }
 
     /**
      * Returns average bill per department.
      * Handles GET requests to /patients/stats/avg-bill-per-department.
-     * @return A list of Object arrays, each containing department name and average bill.
+     * Answered from the in-memory running aggregates, without querying the database.
+     * @param request The current request, for If-None-Match.
+     * @return A list of {@code {"department", "averageBill"}} objects, ordered by department,
+     * or 304 Not Modified.
      */
     @GetMapping("/stats/avg-bill-per-department")
-    public List<Object[]> getAvgBillPerDepartment() {
-        return patientRepository.averageBillPerDepartment();
+    public ResponseEntity<byte[]> getAvgBillPerDepartment(WebRequest request) {
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                departmentBillingStats.snapshot().stream()
+                        .map(billing -> new DepartmentAverageBill(billing.department(), billing.average()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns total, count, minimum and maximum bill per department.
+     * Handles GET requests to /patients/stats/billing-per-department.
+     * @param request The current request, for If-None-Match.
+     * @return A list of DepartmentBilling aggregates, ordered by department, or 304 Not Modified.
+     */
+    @GetMapping("/stats/billing-per-department")
+    public ResponseEntity<byte[]> getBillingPerDepartment(WebRequest request) {
+        return responseCache.respond(request, resourceVersions.patientDataTag(), departmentBillingStats::snapshot);
     }
 
     /**
      * Returns doctors with more than minCount patients.
      * Handles GET requests to /patients/stats/doctors-with-many-patients?minCount={count}.
+     * Answered from the live doctor-workload index, without querying the database.
      * @param minCount The minimum number of patients a doctor must have.
-     * @return A list of Object arrays, each containing doctor ID, name, and patient count.
+     * @param request The current request, for If-None-Match.
+     * @return A list of {@code {"doctorId", "doctorName", "patientCount"}} objects, busiest first,
+     * or 304 Not Modified.
      */
     @GetMapping("/stats/doctors-with-many-patients")
-    public List<Object[]> getDoctorsWithManyPatients(@RequestParam int minCount) {
-        return patientRepository.doctorsWithPatientCount(minCount);
+    public ResponseEntity<byte[]> getDoctorsWithManyPatients(@RequestParam int minCount, WebRequest request) {
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                doctorWorkload.doctorsWithMoreThan(minCount));
+    }
+
+    /**
+     * Returns a billing breakdown of the matching patients.
+     * Handles GET requests to
+     * /patients/stats/bills?groupBy={department|diagnosis|doctor}[&department=][&diagnosis=][&doctorId=][&minBill=][&maxBill=].
+     * Answered from the in-memory columnar snapshot of the patients, without querying the database.
+     * @param groupBy What to group by.
+     * @param request The current request, for If-None-Match; the filters are read from it as a {@link BillFilter}.
+     * @return A list of BillGroup objects ({@code key} is the department, diagnosis or doctor ID), highest total
+     * first, 304 Not Modified, or 400 Bad Request for an unknown groupBy.
+     */
+    @GetMapping("/stats/bills")
+    public ResponseEntity<byte[]> getBillBreakdown(@RequestParam String groupBy, BillFilter filter, WebRequest request) {
+        BillDimension dimension = BillDimension.parse(groupBy);
+        if (dimension == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                billingAnalytics.groupBy(dimension, filter));
+    }
+
+    /**
+     * Returns a histogram of the bills of the matching patients.
+     * Handles GET requests to /patients/stats/bills/histogram[?buckets={n}] with the filters of /patients/stats/bills.
+     * @param buckets Maximum number of equal-width buckets (default 20, max 200).
+     * @param request The current request, for If-None-Match.
+     * @return A list of BillBucket objects ordered by amount, 304 Not Modified, or 400 Bad Request if buckets is out of range.
+     */
+    @GetMapping("/stats/bills/histogram")
+    public ResponseEntity<byte[]> getBillHistogram(@RequestParam(defaultValue = "" + HISTOGRAM_DEFAULT_BUCKETS) int buckets,
+                                                   BillFilter filter, WebRequest request) {
+        if (buckets < 1 || buckets > HISTOGRAM_MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                billingAnalytics.histogram(filter, buckets));
+    }
+
+    /**
+     * @return 400 Bad Request if the database rejected the imported data itself: a constraint violation or
+     * a malformed value (SQLSTATE classes 23 and 22, e.g. an unknown doctor or a non-numeric bill).
+     * @throws DataAccessException {@code e} again for any other failure, which is the server's, not the client's.
+     */
+    private static ResponseEntity<BulkImportResult> badRowOrRethrow(DataAccessException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        throw e;
+    }
+
+    private static boolean isValidPercentile(Double percentile) {
+        return percentile == null || (percentile > 0 && percentile < 100);
+    }
+
+    /**
+     * @return The bill threshold (mean, or the requested percentile), or null if there are no bills.
+     */
+    private BigDecimal billThreshold(Double percentile) {
+        return percentile == null ? billDistribution.mean() : billDistribution.percentile(percentile);
+    }
+
+    private static boolean hasDoctorReference(Patient patient) {
+        return patient.getAssignedDoctor() != null && patient.getAssignedDoctor().getId() != null;
     }
 }
\ No newline at end of file
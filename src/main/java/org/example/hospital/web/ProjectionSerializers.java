@@ -0,0 +1,179 @@
+package org.example.hospital.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.example.hospital.model.DepartmentAverageBill;
+import org.example.hospital.model.DoctorPatientCount;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.MoneyJson;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+import org.example.hospital.stats.DepartmentBilling;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hand-written serializers for the stats projections and the compact patient listing, registered with
+ * Spring's ObjectMapper (and the CBOR one built like it).
+ * Field names are pre-encoded once and values are written directly, so no per-row reflection or
+ * bean introspection happens when a stats response is rendered.
+ */
+@JsonComponent
+public class ProjectionSerializers {
+
+    private static final SerializableString DEPARTMENT = new SerializedString("department");
+    private static final SerializableString AVERAGE_BILL = new SerializedString("averageBill");
+    private static final SerializableString DOCTOR_ID = new SerializedString("doctorId");
+    private static final SerializableString DOCTOR_NAME = new SerializedString("doctorName");
+    private static final SerializableString PATIENT_COUNT = new SerializedString("patientCount");
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString COUNT = new SerializedString("count");
+    private static final SerializableString MIN = new SerializedString("min");
+    private static final SerializableString MAX = new SerializedString("max");
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DIAGNOSIS = new SerializedString("diagnosis");
+    private static final SerializableString BILL_AMOUNT = new SerializedString("billAmount");
+    private static final SerializableString ASSIGNED_DOCTOR_ID = new SerializedString("assignedDoctorId");
+    private static final SerializableString PATIENTS = new SerializedString("patients");
+    private static final SerializableString DOCTORS = new SerializedString("doctors");
+
+    /**
+     * {@code {"department": "...", "averageBill": 123.45}}
+     */
+    public static class DepartmentAverageBillSerializer extends StdSerializer<DepartmentAverageBill> {
+
+        public DepartmentAverageBillSerializer() {
+            super(DepartmentAverageBill.class);
+        }
+
+        @Override
+        public void serialize(DepartmentAverageBill value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(DEPARTMENT);
+            gen.writeString(value.department());
+            gen.writeFieldName(AVERAGE_BILL);
+            writeDecimal(gen, value.averageBill());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * {@code {"doctorId": 1, "doctorName": "...", "patientCount": 6}}
+     */
+    public static class DoctorPatientCountSerializer extends StdSerializer<DoctorPatientCount> {
+
+        public DoctorPatientCountSerializer() {
+            super(DoctorPatientCount.class);
+        }
+
+        @Override
+        public void serialize(DoctorPatientCount value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(DOCTOR_ID);
+            gen.writeNumber(value.doctorId());
+            gen.writeFieldName(DOCTOR_NAME);
+            gen.writeString(value.doctorName());
+            gen.writeFieldName(PATIENT_COUNT);
+            gen.writeNumber(value.patientCount());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * {@code {"department": "...", "total": 1.00, "count": 1, "min": 1.00, "max": 1.00}}
+     */
+    public static class DepartmentBillingSerializer extends StdSerializer<DepartmentBilling> {
+
+        public DepartmentBillingSerializer() {
+            super(DepartmentBilling.class);
+        }
+
+        @Override
+        public void serialize(DepartmentBilling value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(DEPARTMENT);
+            gen.writeString(value.department());
+            gen.writeFieldName(TOTAL);
+            writeMoney(gen, value.total());
+            gen.writeFieldName(COUNT);
+            gen.writeNumber(value.count());
+            gen.writeFieldName(MIN);
+            writeMoney(gen, value.min());
+            gen.writeFieldName(MAX);
+            writeMoney(gen, value.max());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * {@code {"patients": [{"id", "name", "diagnosis", "billAmount", "assignedDoctorId"}, ...],
+     * "doctors": {"<id>": {...Staff}}}}, each doctor written once however many patients reference it.
+     */
+    public static class CompactPatientsSerializer extends StdSerializer<CompactPatients> {
+
+        public CompactPatientsSerializer() {
+            super(CompactPatients.class);
+        }
+
+        @Override
+        public void serialize(CompactPatients value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Map<Long, Staff> doctors = new LinkedHashMap<>();
+            gen.writeStartObject();
+            gen.writeFieldName(PATIENTS);
+            gen.writeStartArray();
+            for (Patient patient : value.patients()) {
+                gen.writeStartObject();
+                gen.writeFieldName(ID);
+                gen.writeNumber(patient.getId());
+                gen.writeFieldName(NAME);
+                gen.writeString(patient.getName());
+                gen.writeFieldName(DIAGNOSIS);
+                gen.writeString(patient.getDiagnosis());
+                gen.writeFieldName(BILL_AMOUNT);
+                writeMoney(gen, patient.getBillAmount());
+                gen.writeFieldName(ASSIGNED_DOCTOR_ID);
+                Staff doctor = patient.getAssignedDoctor();
+                if (doctor == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(doctor.getId());
+                    doctors.putIfAbsent(doctor.getId(), doctor);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(DOCTORS);
+            gen.writeStartObject();
+            for (Map.Entry<Long, Staff> doctor : doctors.entrySet()) {
+                gen.writeFieldName(doctor.getKey().toString());
+                provider.defaultSerializeValue(doctor.getValue(), gen);
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeMoney(JsonGenerator gen, Money value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            MoneyJson.write(value, gen);
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, BigDecimal value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
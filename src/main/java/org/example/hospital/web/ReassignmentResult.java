@@ -0,0 +1,10 @@
+package org.example.hospital.web;
+
+/**
+ * Response body for patient reassignment.
+ * @param fromDoctorId The doctor the patients were taken from.
+ * @param toDoctorId The doctor they were assigned to.
+ * @param reassigned Number of patients moved.
+ */
+public record ReassignmentResult(Long fromDoctorId, Long toDoctorId, long reassigned) {
+}
@@ -0,0 +1,223 @@
+package org.example.hospital.web;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.event.StaffSnapshot;
+import org.example.hospital.event.StatsRefreshedEvent;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Versions behind the ETags of the read endpoints.
+ * <p>
+ * Single resources use their {@code @Version} columns. The tag last served for each ID is remembered, so a
+ * conditional GET whose {@code If-None-Match} still matches is answered with 304 without loading the entity;
+ * at most {@code hospital.etag.max-remembered} tags are kept per resource type, least recently used dropped first.
+ * Collections and stats use generation counters that every change event increments; they start from a
+ * per-process epoch so tags issued before a restart never match. The listeners run last, after the in-memory
+ * stats have applied the change, so a new tag is never paired with a body computed from the old state.
+ */
+@Component
+class ResourceVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // Los pacientes incluyen a su doctor, así que los cambios de staff también invalidan los datos de pacientes.
+    private final AtomicLong patientGeneration = new AtomicLong();
+    private final AtomicLong staffGeneration = new AtomicLong();
+    private final Map<Long, String> patientTags;
+    private final Map<Long, String> staffTags;
+
+    ResourceVersions(@Value("${hospital.etag.max-remembered:100000}") long maxRemembered) {
+        this.patientTags = boundedTags(maxRemembered);
+        this.staffTags = boundedTags(maxRemembered);
+    }
+
+    /**
+     * @return The tag last served for this patient and still current, or null if unknown.
+     */
+    String knownPatientTag(Long id) {
+        return patientTags.get(id);
+    }
+
+    /**
+     * @param generation {@link #patientGeneration()} read before the patient was loaded.
+     * @return The patient's tag, remembered for later conditional requests.
+     */
+    String patientTag(Patient patient, long generation) {
+        return remember(patientTags, patient.getId(), tagOf(patient), generation, patientGeneration::get);
+    }
+
+    /**
+     * @return The tag last served for this staff member and still current, or null if unknown.
+     */
+    String knownStaffTag(Long id) {
+        return staffTags.get(id);
+    }
+
+    /**
+     * @param generation {@link #staffGeneration()} read before the staff member was loaded.
+     * @return The staff member's tag, remembered for later conditional requests.
+     */
+    String staffTag(Staff staff, long generation) {
+        return remember(staffTags, staff.getId(), tagOf(staff), generation, staffGeneration::get);
+    }
+
+    /**
+     * @return The patient's tag from its own and its doctor's versions, without remembering it.
+     */
+    static String tagOf(Patient patient) {
+        Staff doctor = patient.getAssignedDoctor();
+        return doctor == null
+                ? String.valueOf(patient.getVersion())
+                : patient.getVersion() + "." + doctor.getId() + "." + doctor.getVersion();
+    }
+
+    /**
+     * @return The staff member's tag, without remembering it.
+     */
+    static String tagOf(Staff staff) {
+        return String.valueOf(staff.getVersion());
+    }
+
+    long patientGeneration() {
+        return patientGeneration.get();
+    }
+
+    long staffGeneration() {
+        return staffGeneration.get();
+    }
+
+    /**
+     * @return Tag for any collection or aggregate derived from patient data.
+     */
+    String patientDataTag() {
+        return epoch + "-" + patientGeneration.get();
+    }
+
+    /**
+     * @return Tag for any collection derived from staff data only.
+     */
+    String staffDataTag() {
+        return epoch + "-" + staffGeneration.get();
+    }
+
+    /**
+     * @param request The current request.
+     * @param tag Current (unquoted) tag of the requested resource.
+     * @return true if the request's If-None-Match lists the tag, i.e. the client copy is current.
+     */
+    static boolean isNotModified(WebRequest request, String tag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        // If-None-Match usa comparación débil: W/"x" también coincide con "x"
+        return ETag.parse(ifNoneMatch).stream().anyMatch(etag -> etag.isWildcard() || etag.tag().equals(tag));
+    }
+
+    /**
+     * @param request The current request.
+     * @param tag Current (unquoted) tag of the resource about to be modified.
+     * @return true if the request has an If-Match that does not list the tag, i.e. the client edited a stale copy.
+     */
+    static boolean isPreconditionFailed(WebRequest request, String tag) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null) {
+            return false;
+        }
+        // If-Match usa comparación fuerte: una etiqueta débil nunca coincide
+        return ETag.parse(ifMatch).stream().noneMatch(etag -> etag.isWildcard() || (!etag.weak() && etag.tag().equals(tag)));
+    }
+
+    /**
+     * @return 304 Not Modified carrying the current tag.
+     */
+    static <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onPatientChanged(PatientChangedEvent event) {
+        patientGeneration.incrementAndGet();
+        forget(patientTags, event.before());
+        forget(patientTags, event.after());
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onPatientsBulkChanged(PatientsBulkChangedEvent event) {
+        patientGeneration.incrementAndGet();
+        patientTags.clear();
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onPatientsReassigned(PatientsReassignedEvent event) {
+        patientGeneration.incrementAndGet();
+        patientTags.clear(); // Los pacientes movidos no se conocen uno a uno
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onStaffChanged(StaffChangedEvent event) {
+        staffGeneration.incrementAndGet();
+        patientGeneration.incrementAndGet();
+        forget(staffTags, event.before());
+        forget(staffTags, event.after());
+        patientTags.clear(); // Cualquier paciente puede llevar embebido a este doctor
+    }
+
+    @EventListener
+    public void onStatsRefreshed(StatsRefreshedEvent event) {
+        patientGeneration.incrementAndGet(); // Las respuestas calculadas sobre la copia obsoleta ya no valen
+    }
+
+    /**
+     * Stores the tag unless a change event arrived since {@code generation} was read: that change may be
+     * newer than the loaded entity, so remembering its tag could answer 304 for a stale version.
+     * Events increment the generation before removing tags, so checking after the put is enough.
+     */
+    private static String remember(Map<Long, String> tags, Long id, String tag, long generation, LongSupplier current) {
+        tags.put(id, tag);
+        if (current.getAsLong() != generation) {
+            tags.remove(id, tag);
+        }
+        return tag;
+    }
+
+    private static Map<Long, String> boundedTags(long maxRemembered) {
+        // Una etiqueta olvidada solo cuesta una lectura más: la siguiente petición condicional carga la entidad
+        return Caffeine.newBuilder().maximumSize(maxRemembered).<Long, String>build().asMap();
+    }
+
+    private static void forget(Map<Long, String> tags, PatientSnapshot snapshot) {
+        if (snapshot != null) {
+            tags.remove(snapshot.id());
+        }
+    }
+
+    private static void forget(Map<Long, String> tags, StaffSnapshot snapshot) {
+        if (snapshot != null) {
+            tags.remove(snapshot.id());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.hospital.web;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Body formats of the cached responses, chosen from the request's {@code Accept} header.
+ */
+enum ResponseFormat {
+    JSON(MediaType.APPLICATION_JSON, ""),
+    CBOR(MediaType.APPLICATION_CBOR, ".cbor");
+
+    final MediaType mediaType;
+    /** Appended to the ETag: each format has its own bytes, so its own strong tag. */
+    final String tagSuffix;
+
+    ResponseFormat(MediaType mediaType, String tagSuffix) {
+        this.mediaType = mediaType;
+        this.tagSuffix = tagSuffix;
+    }
+
+    /**
+     * @param accept The Accept header, or null.
+     * @return CBOR if the client names it with a higher quality than anything JSON matches, JSON otherwise
+     * (also for a missing or malformed header).
+     */
+    static ResponseFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        double json = 0;
+        double cbor = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    json = Math.max(json, type.getQualityValue());
+                }
+                // Solo si lo pide explícitamente: */* sigue siendo JSON
+                if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                    cbor = Math.max(cbor, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        return cbor > json ? CBOR : JSON;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.hospital.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.hospital.config.ReadRouting;
+import org.example.hospital.repo.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves collection and stats reads with strong ETags, keeping the serialized bytes of recent responses.
+ * <p>
+ * A request whose {@code If-None-Match} matches the current tag gets 304 without computing anything.
+ * Otherwise the cached bytes are returned if they were produced for the current tag, and only a miss
+ * runs the query and the serialization, always against the primary database; concurrent misses for the same
+ * response and tag share one computation. Entries are bounded by total size in bytes.
+ * <p>
+ * The body is JSON or CBOR depending on {@code Accept} (see {@link ResponseFormat}). With
+ * {@code server.compression.enabled}, bodies of at least {@code server.compression.min-response-size} are also
+ * kept gzipped and sent as such to clients that accept it, so a hit is not compressed again on every request.
+ * Each format and encoding is cached separately and has its own tag.
+ */
+@Component
+class SerializedResponseCache {
+
+    private static final String GZIP_TAG_SUFFIX = ".gz";
+
+    private record Entry(String tag, byte[] body, byte[] gzipped) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final Cache<String, Entry> cache;
+    // Tras un cambio, todos los clientes que refrescan a la vez fallan en la caché: una sola consulta para todos
+    private final SingleFlight<String, Entry> misses = new SingleFlight<>(Duration.ZERO);
+    private final int gzipMinBytes;
+
+    SerializedResponseCache(ObjectMapper objectMapper,
+                            MappingJackson2CborHttpMessageConverter cborConverter,
+                            MeterRegistry meterRegistry,
+                            @Value("${hospital.response-cache.max-bytes:16777216}") long maxBytes,
+                            @Value("${hospital.response-cache.ttl:10m}") Duration ttl,
+                            @Value("${server.compression.enabled:false}") boolean compression,
+                            @Value("${server.compression.min-response-size:2KB}") DataSize compressionMinSize) {
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.gzipMinBytes = compression ? (int) compressionMinSize.toBytes() : Integer.MAX_VALUE;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, Entry>weigher((key, entry) -> entry.body().length
+                        + (entry.gzipped() == null ? 0 : entry.gzipped().length))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Mismas claves de etiqueta que las cachés de Spring (cache, cache.manager): Prometheus descarta un nombre
+        // de métrica registrado con dos conjuntos de etiquetas distintos
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses", "cache.manager", "serializedResponseCache");
+        FunctionCounter.builder("hospital.response-cache.coalesced", misses, SingleFlight::sharedCount)
+                .description("Cache misses answered with the body computed for an identical concurrent request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param request The current request, checked against {@code tag} and used as cache key.
+     * @param tag Current ETag of the resource (see {@link ResourceVersions}).
+     * @param body Produces the response body; only called on a cache miss.
+     * @return 200 OK with the JSON or CBOR body (possibly gzipped) and ETag, or 304 Not Modified.
+     */
+    ResponseEntity<byte[]> respond(WebRequest request, String tag, Supplier<?> body) {
+        ResponseFormat format = ResponseFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String formatTag = tag + format.tagSuffix;
+        String gzipTag = formatTag + GZIP_TAG_SUFFIX;
+        if (ResourceVersions.isNotModified(request, formatTag)) {
+            return notModified(formatTag);
+        }
+        if (gzip && ResourceVersions.isNotModified(request, gzipTag)) {
+            return notModified(gzipTag);
+        }
+        String key = format + " " + request.getDescription(false) + "?" + queryString(request);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || !entry.tag().equals(tag)) {
+            entry = misses.execute(key + "#" + tag, () -> {
+                // Del primario: un cuerpo leído de una réplica atrasada quedaría guardado (y servido con 304) bajo el ETag nuevo
+                byte[] bytes = serialize(format == ResponseFormat.CBOR ? cborMapper : objectMapper,
+                        ReadRouting.fromPrimary(body));
+                Entry computed = new Entry(tag, bytes, bytes.length >= gzipMinBytes ? gzip(bytes) : null);
+                cache.put(key, computed);
+                return computed;
+            });
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.mediaType)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip && entry.gzipped() != null) {
+            // Con Content-Encoding ya puesto, Tomcat no vuelve a comprimir
+            return response.eTag(gzipTag)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(entry.gzipped());
+        }
+        return response.eTag(formatTag).body(entry.body());
+    }
+
+    private static ResponseEntity<byte[]> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(tag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response body", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return true if the Accept-Encoding header lists gzip (or *) without {@code q=0}.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].strip();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length < 2 || !parts[1].strip().matches("(?i)q\\s*=\\s*0(\\.0{0,3})?");
+            }
+        }
+        return false;
+    }
+
+    private static String queryString(WebRequest request) {
+        StringBuilder query = new StringBuilder();
+        request.getParameterMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(param -> query.append(param.getKey()).append('=')
+                        .append(String.join(",", param.getValue())).append('&'));
+        return query.toString();
+    }
+}
@@ -1,12 +1,30 @@
 package org.example.hospital.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.hospital.config.ReadRouting;
+import org.example.hospital.event.PatientsReassignedEvent;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.event.StaffSnapshot;
+import org.example.hospital.model.PatientReassignment;
+import org.example.hospital.model.Role;
 import org.example.hospital.model.Staff;
+import org.example.hospital.repo.CursorStreamRepository;
+import org.example.hospital.repo.PatientRepository;
 import org.example.hospital.repo.StaffRepository;
+import org.example.hospital.stats.DoctorLoad;
+import org.example.hospital.stats.DoctorWorkload;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -16,34 +34,135 @@ import java.util.stream.StreamSupport;
 @RequestMapping("/staff")
 public class StaffController {
 
+    private static final int WORKLOAD_DEFAULT_LIMIT = 10;
+    private static final int WORKLOAD_MAX_LIMIT = 1000;
+
     private final StaffRepository staffRepository;
+    private final PatientRepository patientRepository;
+    private final CursorStreamRepository cursorStreamRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final SerializedResponseCache responseCache;
+    private final DoctorWorkload doctorWorkload;
 
     @Autowired
-    public StaffController(StaffRepository staffRepository) {
+    public StaffController(StaffRepository staffRepository,
+                           PatientRepository patientRepository,
+                           CursorStreamRepository cursorStreamRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper,
+                           ResourceVersions resourceVersions,
+                           SerializedResponseCache responseCache,
+                           DoctorWorkload doctorWorkload) {
         this.staffRepository = staffRepository;
+        this.patientRepository = patientRepository;
+        this.cursorStreamRepository = cursorStreamRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.resourceVersions = resourceVersions;
+        this.responseCache = responseCache;
+        this.doctorWorkload = doctorWorkload;
     }
 
     /**
-     * Handles GET requests to /staff
-     * Retrieves all staff members.
-     * @return A list of Staff objects.
+     * Handles GET requests to /staff and /staff?after={id}&limit={n}
+     * Retrieves all staff members, or one keyset page of them when either parameter is present.
+     * The cursor for the next page is returned in the X-Next-After header.
+     * The full listing carries an ETag and is served from the serialized response cache while unchanged.
+     * @param after Return staff with an ID strictly greater than this one (default 0).
+     * @param limit Page size (default 100, max 1000).
+     * @param request The current request, for If-None-Match.
+     * @return A list of Staff objects ordered by ID when paged, or 304 Not Modified.
      */
     @GetMapping
-    public List<Staff> getAllStaff() {
-        return StreamSupport.stream(staffRepository.findAll().spliterator(), false)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> getAllStaff(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         WebRequest request) {
+        if (KeysetPaging.isPaged(after, limit)) {
+            int pageSize = KeysetPaging.pageSize(limit);
+            List<Staff> page = staffRepository.findByIdGreaterThanOrderByIdAsc(
+                    KeysetPaging.cursor(after), KeysetPaging.of(pageSize));
+            return KeysetPaging.page(page, pageSize, Staff::getId);
+        }
+        return responseCache.respond(request, resourceVersions.staffDataTag(), () ->
+                StreamSupport.stream(staffRepository.findAll().spliterator(), false)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Handles GET requests to /staff with Accept: application/x-ndjson
+     * Streams all staff members as newline-delimited JSON, read through a forward-only JDBC cursor.
+     * @return A streaming response with one Staff object per line, ordered by ID.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStaff() {
+        return NdjsonStreams.response(objectMapper, cursorStreamRepository::streamStaff);
+    }
+
+    /**
+     * Handles GET requests to /staff/doctors/workload[?order={busiest|least-busy}][&limit={n}][&department={name}]
+     * Ranks doctors by the number of patients assigned to them, from the live doctor-workload index.
+     * @param order busiest (default) or least-busy first; ties go to the lower ID.
+     * @param limit Maximum number of doctors (default 10, max 1000).
+     * @param department Only doctors of this department.
+     * @param request The current request, for If-None-Match.
+     * @return A list of {@code {"doctorId", "doctorName", "department", "patientCount"}} objects,
+     * 304 Not Modified, or 400 Bad Request for an unknown order or a limit out of range.
+     */
+    @GetMapping("/doctors/workload")
+    public ResponseEntity<byte[]> getDoctorWorkload(@RequestParam(defaultValue = "busiest") String order,
+                                                    @RequestParam(defaultValue = "" + WORKLOAD_DEFAULT_LIMIT) int limit,
+                                                    @RequestParam(required = false) String department,
+                                                    WebRequest request) {
+        boolean busiest = order.equals("busiest");
+        if ((!busiest && !order.equals("least-busy")) || limit < 1 || limit > WORKLOAD_MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Los cambios de staff también renuevan la generación de pacientes
+        return responseCache.respond(request, resourceVersions.patientDataTag(), () ->
+                doctorWorkload.ranked(department, limit, busiest));
+    }
+
+    /**
+     * Handles GET requests to /staff/doctors/least-loaded?department={name}
+     * Finds the doctor of a department with the fewest patients, e.g. to assign a new patient.
+     * A lookup in the live doctor-workload index, without querying the database.
+     * @param department The department.
+     * @return ResponseEntity with the doctor and their patient count, or 404 Not Found if the department
+     * has no doctor.
+     */
+    @GetMapping("/doctors/least-loaded")
+    public ResponseEntity<DoctorLoad> getLeastLoadedDoctor(@RequestParam String department) {
+        return doctorWorkload.leastLoaded(department)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
      * Handles GET requests to /staff/{id}
      * Retrieves a single staff member by ID.
+     * The ETag is the entity version; a matching If-None-Match for the tag last served is answered
+     * with 304 Not Modified without a lookup.
      * @param id The ID of the staff member to retrieve.
-     * @return ResponseEntity with Staff object if found, or 404 Not Found.
+     * @param request The current request, for If-None-Match.
+     * @return ResponseEntity with Staff object if found, 304 Not Modified, or 404 Not Found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Staff> getStaffById(@PathVariable Long id) {
-        Optional<Staff> staff = staffRepository.findById(id);
-        return staff.map(ResponseEntity::ok) // If staff is present, return 200 OK with staff object
+    public ResponseEntity<Staff> getStaffById(@PathVariable Long id, WebRequest request) {
+        String knownTag = resourceVersions.knownStaffTag(id);
+        if (knownTag != null && ResourceVersions.isNotModified(request, knownTag)) {
+            return ResourceVersions.notModified(knownTag);
+        }
+        long generation = resourceVersions.staffGeneration();
+        // Del primario: la etiqueta queda recordada, y una réplica atrasada la calcularía sobre datos viejos
+        Optional<Staff> staff = ReadRouting.fromPrimary(() -> staffRepository.findById(id));
+        return staff.map(found -> { // If staff is present, return 200 OK with staff object
+                    String tag = resourceVersions.staffTag(found, generation);
+                    return ResourceVersions.isNotModified(request, tag)
+                            ? ResourceVersions.<Staff>notModified(tag)
+                            : ResponseEntity.ok().eTag(tag).body(found);
+                })
                 .orElseGet(() -> ResponseEntity.notFound().build()); // Else return 404 Not Found
     }
 
@@ -56,7 +175,9 @@ public class StaffController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED) // Sets the HTTP status to 201 Created
     public Staff registerStaff(@RequestBody Staff staff) {
-        return staffRepository.save(staff);
+        Staff saved = staffRepository.save(staff);
+        eventPublisher.publishEvent(StaffChangedEvent.created(StaffSnapshot.of(saved)));
+        return saved;
     }
 
     /**
@@ -64,17 +185,70 @@ public class StaffController {
      * Updates an existing staff member.
      * @param id The ID of the staff member to update.
      * @param staffDetails The updated staff details (from request body).
-     * @return ResponseEntity with the updated Staff object, or 404 Not Found if ID not found.
+     * @return ResponseEntity with the updated Staff object, 404 Not Found if ID not found,
+     * or 409 Conflict if another update committed first.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Staff> updateStaff(@PathVariable Long id, @RequestBody Staff staffDetails) {
-        return staffRepository.findById(id) // Find the existing staff member by ID
-                .map(staff -> { // If found, update its properties
-                    staff.setName(staffDetails.getName());
-                    staff.setRole(staffDetails.getRole());
-                    staff.setDepartment(staffDetails.getDepartment());
-                    return ResponseEntity.ok(staffRepository.save(staff)); // Save and return updated staff with 200 OK
-                }).orElseGet(() -> ResponseEntity.notFound().build()); // If not found, return 404 Not Found
+        Optional<Staff> found = staffRepository.findById(id); // Find the existing staff member by ID
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build(); // If not found, return 404 Not Found
+        }
+        // The instance may come from the shared staff cache: update a copy, never the cached object
+        Staff staff = found.get().copy();
+        StaffSnapshot before = StaffSnapshot.of(staff);
+        staff.setName(staffDetails.getName());
+        staff.setRole(staffDetails.getRole());
+        staff.setDepartment(staffDetails.getDepartment());
+        Staff saved;
+        try {
+            saved = staffRepository.save(staff);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        eventPublisher.publishEvent(StaffChangedEvent.updated(before, StaffSnapshot.of(saved)));
+        return ResponseEntity.ok(saved); // Return updated staff with 200 OK
+    }
+
+    /**
+     * Handles PATCH requests to /staff/{id} (Content-Type application/merge-patch+json or application/json)
+     * Partially updates a staff member with JSON Merge Patch semantics: only the members present in the body
+     * change. The UPDATE sets only the changed columns and checks the entity version.
+     * @param id The ID of the staff member to update.
+     * @param patch The merge patch document.
+     * @param request The current request, for an optional If-Match with the ETag the client last saw.
+     * @return ResponseEntity with the updated Staff object and its new ETag, 404 Not Found,
+     * 400 Bad Request for an invalid patch (name, role and department cannot be cleared),
+     * 412 Precondition Failed if If-Match is stale, or 409 Conflict if another update committed first.
+     */
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Staff> patchStaff(@PathVariable Long id, @RequestBody ObjectNode patch, WebRequest request) {
+        Optional<Staff> found = staffRepository.findById(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ResourceVersions.isPreconditionFailed(request, ResourceVersions.tagOf(found.get()))) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ResourceVersions.tagOf(found.get())).build();
+        }
+        // The instance may come from the shared staff cache: patch a copy, never the cached object
+        Staff staff = found.get().copy();
+        StaffSnapshot before = StaffSnapshot.of(staff);
+        try {
+            MergePatch.apply(objectMapper, staff, patch);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (staff.getName() == null || staff.getRole() == null || staff.getDepartment() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Staff saved;
+        try {
+            saved = staffRepository.save(staff);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        eventPublisher.publishEvent(StaffChangedEvent.updated(before, StaffSnapshot.of(saved)));
+        return ResponseEntity.ok().eTag(ResourceVersions.tagOf(saved)).body(saved);
     }
 
     /**
@@ -85,11 +259,40 @@ public class StaffController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteStaff(@PathVariable Long id) {
-        if (staffRepository.existsById(id)) { // Check if the staff member exists
-            staffRepository.deleteById(id); // Delete it
+        Optional<Staff> staff = staffRepository.findById(id); // Check if the staff member exists
+        if (staff.isPresent()) {
+            staffRepository.delete(staff.get()); // Delete it
+            eventPublisher.publishEvent(StaffChangedEvent.deleted(StaffSnapshot.of(staff.get())));
             return ResponseEntity.noContent().build(); // Return 204 No Content
         } else {
             return ResponseEntity.notFound().build(); // Return 404 Not Found
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Handles POST requests to /staff/{id}/reassign-patients?to={doctorId}
+     * Moves every patient assigned to this staff member to another doctor, e.g. when a doctor leaves.
+     * Runs as a single set-based UPDATE, however many patients are moved.
+     * @param id The ID of the staff member whose patients are moved.
+     * @param to The ID of the doctor who takes them over.
+     * @return ResponseEntity with the number of patients moved, 404 Not Found if {@code id} does not exist,
+     * or 400 Bad Request if {@code to} is the same staff member, does not exist or is not a doctor.
+     */
+    @PostMapping("/{id}/reassign-patients")
+    public ResponseEntity<ReassignmentResult> reassignPatients(@PathVariable Long id, @RequestParam Long to) {
+        Optional<Staff> from = staffRepository.findById(id);
+        if (from.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Staff> target = staffRepository.findById(to);
+        if (id.equals(to) || target.isEmpty() || target.get().getRole() != Role.DOCTOR) {
+            return ResponseEntity.badRequest().build();
+        }
+        PatientReassignment moved = patientRepository.reassignPatients(id, to);
+        if (moved.patients() > 0) {
+            eventPublisher.publishEvent(PatientsReassignedEvent.of(
+                    StaffSnapshot.of(from.get()), StaffSnapshot.of(target.get()), moved));
+        }
+        return ResponseEntity.ok(new ReassignmentResult(id, to, moved.patients()));
+    }
+}
@@ -0,0 +1,19 @@
+-- Baseline schema, equivalent to what Hibernate generated from the Staff and Patient entities.
+-- Databases created earlier with ddl-auto=update are baselined at this version (spring.flyway.baseline-on-migrate),
+-- so this script only runs against empty databases.
+
+CREATE TABLE IF NOT EXISTS staff (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    role       VARCHAR(255) NOT NULL CHECK (role IN ('DOCTOR', 'NURSE', 'ADMIN')),
+    department VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS patients (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name               VARCHAR(255),
+    diagnosis          VARCHAR(255),
+    bill_amount        NUMERIC(38, 2),
+    assigned_doctor_id BIGINT,
+    CONSTRAINT fk_patients_assigned_doctor FOREIGN KEY (assigned_doctor_id) REFERENCES staff (id)
+);
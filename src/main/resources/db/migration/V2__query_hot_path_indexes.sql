@@ -0,0 +1,19 @@
+-- flyway:executeInTransaction=false
+-- Indexes for the PatientQuery statements. Built CONCURRENTLY so existing large tables stay writable.
+
+-- FIND_PATIENTS_FOR_DOCTOR, the patients/staff joins, and the per-department / per-doctor aggregates:
+-- covering, so AVG/SUM/COUNT over a doctor's patients can be answered by an index-only scan.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_assigned_doctor_bill
+    ON patients (assigned_doctor_id) INCLUDE (bill_amount);
+
+-- PATIENTS_ABOVE_AVG_BILL / PATIENTS_WITH_BILL_ABOVE range filters and the global AVG(bill_amount).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_bill_amount
+    ON patients (bill_amount);
+
+-- DOCTORS_WITH_PATIENT_COUNT only looks at doctors.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_staff_doctors
+    ON staff (id) INCLUDE (name, department) WHERE role = 'DOCTOR';
+
+-- Department grouping and lookups by department.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_staff_department
+    ON staff (department);
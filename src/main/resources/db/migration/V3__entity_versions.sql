@@ -0,0 +1,5 @@
+-- Optimistic-locking versions for Patient and Staff (@Version), also used as the ETags of GET /patients/{id}
+-- and GET /staff/{id}. A constant default makes ADD COLUMN a catalog-only change, without rewriting the tables.
+
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE staff ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,24 @@
+-- Append-only change log written by AuditWriter. Rows can be inserted but never updated or deleted.
+
+CREATE TABLE IF NOT EXISTS audit_log (
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    occurred_at  TIMESTAMPTZ NOT NULL,
+    entity       VARCHAR(32) NOT NULL,
+    entity_id    BIGINT,
+    action       VARCHAR(16) NOT NULL,
+    before_state JSONB,
+    after_state  JSONB
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_entity ON audit_log (entity, entity_id, occurred_at);
+
+CREATE OR REPLACE FUNCTION audit_log_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'audit_log is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS audit_log_append_only ON audit_log;
+CREATE TRIGGER audit_log_append_only
+    BEFORE UPDATE OR DELETE ON audit_log
+    FOR EACH ROW EXECUTE FUNCTION audit_log_append_only();
@@ -0,0 +1,4 @@
+-- Trigram matching for patient search. pg_trgm is a trusted extension (PostgreSQL 13+), so the database
+-- owner can create it without superuser rights.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,7 @@
+-- flyway:executeInTransaction=false
+-- Trigram index for GET /patients/search (PatientQuery.SEARCH_PATIENTS). GiST rather than GIN because GiST
+-- can return rows already ordered by trigram distance, so the ranked top-N needs no sort of all matches.
+-- The indexed expression must stay identical to the one in SEARCH_PATIENTS.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_search_trgm
+    ON patients USING gist ((coalesce(name, '') || ' ' || coalesce(diagnosis, '')) gist_trgm_ops);
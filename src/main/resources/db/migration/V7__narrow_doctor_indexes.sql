@@ -0,0 +1,16 @@
+-- flyway:executeInTransaction=false
+-- The INCLUDE columns of idx_patients_assigned_doctor_bill and idx_staff_doctors were meant for index-only
+-- scans of AVERAGE_BILL_PER_DEPARTMENT and DOCTORS_WITH_PATIENT_COUNT, but those aggregate every patient and
+-- the planner reads the whole table instead. The statements that do choose the indexes only need the keys:
+-- FIND_PATIENTS_FOR_DOCTOR and REASSIGN_PATIENTS look patients up by doctor, and REASSIGN_PATIENTS checks
+-- that the new doctor exists. The new indexes are built before the old ones are dropped.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_assigned_doctor
+    ON patients (assigned_doctor_id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_patients_assigned_doctor_bill;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_staff_doctor_ids
+    ON staff (id) WHERE role = 'DOCTOR';
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_staff_doctors;
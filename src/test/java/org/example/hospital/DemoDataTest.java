@@ -0,0 +1,25 @@
+package org.example.hospital;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Base of the tests that run the whole application, with MockMvc, against the demo data in a database of their
+ * own. Subclasses share one application context and database (Spring caches the context), so each test must
+ * hold whatever rows they add and not depend on the exact row counts.
+ */
+@SpringBootTest(properties = {
+        "hospital.demo-data.enabled=true",
+        "hospital.stats.reconcile-interval-ms=86400000"})
+@AutoConfigureMockMvc
+@Import(StatementCounter.class)
+public abstract class DemoDataTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabases.register(registry);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.hospital;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL statements a thread sends through the application DataSource.
+ * <p>
+ * Import into a test context to wrap the DataSource; then {@link #start()} on the thread under test (with
+ * MockMvc, the request runs on the test thread), exercise the code and read {@link #stop()}. Statements
+ * run by other threads at the same time (audit writer, scheduled rebuilds) are not counted, and neither is
+ * anything Hikari sends on its own, such as the connection init SQL.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCounter {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Starts recording the statements of the current thread, discarding any earlier recording.
+     */
+    public static void start() {
+        RECORDED.set(Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    /**
+     * @return The SQL of every statement executed on this thread since {@link #start()}, in order.
+     */
+    public static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded == null ? List.of() : List.copyOf(recorded);
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private static Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                if (result instanceof Statement statement) {
+                    // prepareStatement(sql) / prepareCall(sql) llevan el SQL; createStatement() lo recibe al ejecutar
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    return wrap(statement, sql);
+                }
+                return result;
+            });
+        }
+
+        private static Statement wrap(Statement statement, String preparedSql) {
+            Class<? extends Statement> type = statement instanceof java.sql.CallableStatement
+                    ? java.sql.CallableStatement.class
+                    : statement instanceof java.sql.PreparedStatement ? java.sql.PreparedStatement.class : Statement.class;
+            return proxy(type, statement, (method, args, result) -> result, (method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    List<String> recorded = RECORDED.get();
+                    if (recorded != null) {
+                        recorded.add(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+                    }
+                }
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper) {
+            return proxy(type, target, mapper, (method, args) -> { });
+        }
+
+        private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper, BeforeCall before) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().equals("unwrap") && args[0] instanceof Class<?> iface && iface.isInstance(proxy)) {
+                    return proxy;
+                }
+                before.accept(method, args);
+                try {
+                    return mapper.map(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultMapper {
+        Object map(Method method, Object[] args, Object result) throws Throwable;
+    }
+
+    @FunctionalInterface
+    private interface BeforeCall {
+        void accept(Method method, Object[] args);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.hospital;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded PostgreSQL servers for the tests. One server is started per JVM and shared; every caller gets a new,
+ * empty database on it, so test classes do not see each other's rows even when Spring caches their contexts.
+ */
+public final class TestDatabases {
+
+    private static final AtomicInteger NEXT = new AtomicInteger();
+    private static EmbeddedPostgres shared;
+
+    private TestDatabases() {
+    }
+
+    /**
+     * @return JDBC URL of a new empty database on the shared server.
+     */
+    public static String newDatabase() {
+        return newDatabase(server());
+    }
+
+    /**
+     * @return JDBC URL of a new empty database on {@code server}.
+     */
+    public static String newDatabase(EmbeddedPostgres server) {
+        String name = "test_" + NEXT.incrementAndGet();
+        try (Connection connection = server.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create test database " + name, e);
+        }
+        return server.getJdbcUrl("postgres", name);
+    }
+
+    /**
+     * Points {@code spring.datasource.*} at a new empty database on the shared server.
+     */
+    public static void register(DynamicPropertyRegistry registry) {
+        String url = newDatabase();
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    /**
+     * @return A server of its own, for tests that need more than one (e.g. a primary and a replica);
+     * closed when the JVM exits.
+     */
+    public static EmbeddedPostgres startServer() {
+        try {
+            EmbeddedPostgres server = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> close(server)));
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+        }
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (shared == null) {
+            shared = startServer();
+        }
+        return shared;
+    }
+
+    private static void close(EmbeddedPostgres server) {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Ya se está saliendo de la JVM: nada más que hacer
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.hospital.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditQueueTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void blockWaitsForTheWriterInsteadOfDropping() throws Exception {
+        AuditQueue queue = new AuditQueue(1, 1, OverflowPolicy.BLOCK, 60_000, registry);
+        queue.setConsumer(Thread.currentThread());
+        assertThat(queue.offer(record(1))).isTrue();
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> queue.offer(record(2)));
+        Thread.sleep(200);
+        assertThat(blocked).isNotDone();
+
+        List<AuditRecord> batch = new ArrayList<>();
+        queue.drainTo(batch, 1);
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+        queue.drainTo(batch, 1);
+        assertThat(batch).extracting(AuditRecord::entityId).containsExactly(1L, 2L);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void blockDropsOnceTheTimeoutExpires() throws Exception {
+        AuditQueue queue = new AuditQueue(1, 1, OverflowPolicy.BLOCK, 100, registry);
+        queue.setConsumer(Thread.currentThread());
+        assertThat(queue.offer(record(1))).isTrue();
+
+        // Hay consumidor pero no drena: el productor no puede quedarse aparcado para siempre
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> queue.offer(record(2)));
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void dropDiscardsAndCountsWhenFull() {
+        AuditQueue queue = new AuditQueue(1, 1, OverflowPolicy.DROP, 60_000, registry);
+        queue.setConsumer(Thread.currentThread());
+
+        assertThat(queue.offer(record(1))).isTrue();
+        assertThat(queue.offer(record(2))).isFalse();
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    private double dropped() {
+        return registry.get("hospital.audit.records").tag("result", "dropped").counter().count();
+    }
+
+    private static AuditRecord record(long id) {
+        return new AuditRecord(Instant.now(), "patient", id, AuditRecord.Action.UPDATED, null, null);
+    }
+}
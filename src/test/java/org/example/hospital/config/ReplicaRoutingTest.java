@@ -0,0 +1,129 @@
+package org.example.hospital.config;
+
+import org.example.hospital.TestDatabases;
+import org.example.hospital.model.DepartmentAverageBill;
+import org.example.hospital.repo.PatientRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read replica mode against two servers: a primary and a stand-in replica. The stand-in is not fed by
+ * replication; it holds rows of its own, so whichever server answered a read shows in the result.
+ */
+@SpringBootTest(properties = {
+        "hospital.stats.reconcile-interval-ms=86400000",
+        "hospital.datasource.replica-check-interval-ms=100"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    private static final long REPLICA_DOCTOR_ID = 1_000_000;
+    private static final long REPLICA_PATIENT_ID = 1_000_000;
+    private static final String REPLICA_DEPARTMENT = "Replica Only";
+
+    private static final JdbcTemplate PRIMARY = jdbcTemplate(TestDatabases.newDatabase(TestDatabases.startServer()));
+    private static final JdbcTemplate REPLICA = jdbcTemplate(TestDatabases.newDatabase(TestDatabases.startServer()));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> url(PRIMARY));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("hospital.datasource.replica-urls", () -> url(REPLICA));
+    }
+
+    static {
+        Flyway.configure().dataSource(REPLICA.getDataSource())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load().migrate();
+        REPLICA.update("INSERT INTO staff (id, name, role, department) VALUES (?, 'Dr. Replica', 'DOCTOR', ?)",
+                REPLICA_DOCTOR_ID, REPLICA_DEPARTMENT);
+        REPLICA.update("INSERT INTO patients (id, name, diagnosis, bill_amount, assigned_doctor_id) "
+                + "VALUES (?, 'Replica Patient', 'Flu', 100, ?)", REPLICA_PATIENT_ID, REPLICA_DOCTOR_ID);
+    }
+
+    @BeforeEach
+    void awaitReplica() {
+        // La primera comprobación de retraso es asíncrona: hasta entonces todo se lee del primario
+        await().atMost(Duration.ofSeconds(10)).until(() -> patientRepository.findById(REPLICA_PATIENT_ID).isPresent());
+    }
+
+    @Test
+    void writesGoToThePrimary() throws Exception {
+        mockMvc.perform(post("/patients").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Written Patient\",\"diagnosis\":\"Flu\",\"billAmount\":120.50}"))
+                .andExpect(status().isCreated());
+
+        assertThat(countNamed(PRIMARY, "Written Patient")).isEqualTo(1);
+        assertThat(countNamed(REPLICA, "Written Patient")).isZero();
+    }
+
+    @Test
+    void readOnlyQueriesGoToTheReplica() throws Exception {
+        mockMvc.perform(get("/patients/search").param("q", "Replica"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        assertThat(patientRepository.averageBillPerDepartment())
+                .extracting(DepartmentAverageBill::department).contains(REPLICA_DEPARTMENT);
+    }
+
+    @Test
+    void readsThatMustBeCurrentGoToThePrimary() throws Exception {
+        mockMvc.perform(get("/patients/search").param("q", "Replica")
+                        .header(ReadRoutingFilter.CONSISTENCY_HEADER, "primary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        // Su ETag queda recordado: no puede calcularse sobre una réplica
+        mockMvc.perform(get("/patients/{id}", REPLICA_PATIENT_ID)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/staff/{id}", REPLICA_DOCTOR_ID)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void connectionsWithCredentialsAreRoutedToThePools() {
+        // Los pools de Hikari no admiten credenciales por conexión: la respuesta debe ser la suya
+        assertThatThrownBy(() -> replicaRouter.readOnlyDataSource().getConnection("postgres", "postgres"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+
+    private static int countNamed(JdbcTemplate database, String name) {
+        return database.queryForObject("SELECT COUNT(*) FROM patients WHERE name = ?", Integer.class, name);
+    }
+
+    private static JdbcTemplate jdbcTemplate(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "postgres", "postgres"));
+    }
+
+    private static String url(JdbcTemplate database) {
+        return ((DriverManagerDataSource) database.getDataSource()).getUrl();
+    }
+}
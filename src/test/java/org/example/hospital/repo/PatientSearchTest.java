@@ -0,0 +1,34 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientSearchTest extends DemoDataTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void pagesThroughEquallyRankedMatchesByIdWithoutRepeatsOrGaps() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Mismo nombre y diagnóstico: todos a la misma distancia del texto buscado
+            ids.add(patientRepository.save(new Patient("Quixotic Tiebreak", "Flu", Money.ofMinor(1_000), null)).getId());
+        }
+
+        List<Long> paged = new ArrayList<>();
+        for (int offset = 0; offset < ids.size(); offset += 3) {
+            patientRepository.searchPatients("quixotic tiebreak", 3, offset).forEach(patient -> paged.add(patient.getId()));
+        }
+
+        assertThat(paged).isEqualTo(ids.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.hospital.repo;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaffCacheTest extends DemoDataTest {
+
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void failedUpdateLeavesTheCachedStaffUnchanged() {
+        Staff doctor = staffRepository.save(new Staff("Dr. Cached", Role.DOCTOR, "Cardiology"));
+        Cache cache = cacheManager.getCache(StaffRepository.CACHE);
+        AtomicReference<Staff> cached = new AtomicReference<>();
+
+        // Como una petición con open-in-view: la búsqueda y el save comparten el contexto de persistencia
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Staff found = staffRepository.findById(doctor.getId()).orElseThrow(); // Fallo de caché: queda cacheado
+            cached.set(cache.get(doctor.getId(), Staff.class));
+            Staff edited = found.copy();
+            edited.setName("Dr. Renamed");
+            staffRepository.save(edited);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cached.get()).isNotNull();
+        assertThat(cached.get().getName()).isEqualTo("Dr. Cached");
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.hospital.sql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.hospital.TestDatabases;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Every {@link PatientQuery} is planned without a sequential scan on a migrated database holding
+ * {@code hospital.plan-check.rows} patients (200,000 by default; e.g. {@code mvn test -Dhospital.plan-check.rows=1000000}),
+ * i.e. the indexes from the migrations exist and are still usable for it.
+ * <p>
+ * A statement that should scan a whole table must be listed in {@link #EXEMPT} with the reason; any other
+ * statement needs sample arguments in {@link #sampleArguments}, so a new query cannot go unchecked. Each index
+ * the migrations create for these statements is listed in {@link #CHOSEN_BY} with one that must use it.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientQueryPlanTest {
+
+    private static final int ROWS = Integer.getInteger("hospital.plan-check.rows", 200_000);
+    private static final int PATIENTS_PER_DOCTOR = 200;
+
+    private static final Map<PatientQuery, String> EXEMPT = new EnumMap<>(Map.of(
+            PatientQuery.AVERAGE_BILL_PER_DEPARTMENT, "aggregates every patient; no index is kept for it",
+            PatientQuery.DOCTORS_WITH_PATIENT_COUNT, "aggregates every patient; no index is kept for it",
+            PatientQuery.PATIENTS_WITH_BILL_ABOVE, "unpaged: above the mean it returns about half of the table",
+            PatientQuery.ALL_PATIENTS, "streams the whole table",
+            PatientQuery.ALL_BILL_CENTS, "streams the whole table",
+            PatientQuery.ALL_BILLING_FACTS, "streams the whole table"));
+
+    private static final Map<String, PatientQuery> CHOSEN_BY = Map.of(
+            "idx_patients_assigned_doctor", PatientQuery.FIND_PATIENTS_FOR_DOCTOR,
+            "idx_staff_doctor_ids", PatientQuery.REASSIGN_PATIENTS,
+            "idx_patients_search_trgm", PatientQuery.SEARCH_PATIENTS);
+
+    private final Map<PatientQuery, Object[]> sampleArguments = new EnumMap<>(PatientQuery.class);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void loadDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(TestDatabases.newDatabase(), "postgres", "postgres");
+        // Como spring.flyway.postgresql.transactional-lock=false: el bloqueo transaccional impediría los CREATE INDEX CONCURRENTLY
+        Flyway.configure().dataSource(dataSource)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        int doctors = Math.max(2, ROWS / PATIENTS_PER_DOCTOR);
+        jdbcTemplate.update("""
+                INSERT INTO staff (name, role, department)
+                SELECT 'Dr. Plan ' || i, 'DOCTOR',
+                       (ARRAY['Cardiology', 'Pediatrics', 'Oncology', 'Neurology', 'Radiology'])[1 + i % 5]
+                FROM generate_series(1, ?) i
+                """, doctors);
+        // Valores deterministas: mismo plan en cada ejecución
+        jdbcTemplate.update("""
+                INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id)
+                SELECT 'Patient ' || i,
+                       (ARRAY['Arrhythmia', 'Fever', 'Broken Arm', 'Diabetes', 'Checkup', 'Headache', 'Flu', 'Allergies'])[1 + i % 8],
+                       (5000 + (i::bigint * 7919) % 1995000) / 100.0,
+                       (SELECT MIN(id) FROM staff) + (i::bigint * 31) % ?
+                FROM generate_series(1, ?) i
+                """, doctors, ROWS);
+        jdbcTemplate.execute("VACUUM ANALYZE patients");
+        jdbcTemplate.execute("VACUUM ANALYZE staff");
+
+        long doctorId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM staff", Long.class);
+        long minPatientId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM patients", Long.class);
+        BigDecimal medianBill = jdbcTemplate.queryForObject(
+                "SELECT percentile_disc(0.5) WITHIN GROUP (ORDER BY bill_amount) FROM patients", BigDecimal.class);
+        sampleArguments.put(PatientQuery.FIND_PATIENTS_FOR_DOCTOR, new Object[]{doctorId});
+        sampleArguments.put(PatientQuery.PATIENTS_WITH_BILL_ABOVE_PAGE, new Object[]{medianBill, minPatientId, 100});
+        sampleArguments.put(PatientQuery.SEARCH_PATIENTS, new Object[]{"diab", "diab", 40, 20, 20});
+        sampleArguments.put(PatientQuery.REASSIGN_PATIENTS, new Object[]{doctorId + 1, doctorId, doctorId + 1});
+    }
+
+    @ParameterizedTest
+    @EnumSource(PatientQuery.class)
+    void plannedWithoutSequentialScan(PatientQuery query) throws Exception {
+        assumeTrue(!EXEMPT.containsKey(query), () -> query + " is exempt: " + EXEMPT.get(query));
+        Object[] arguments = sampleArguments.get(query);
+        if (arguments == null) {
+            fail(query + " has no sample arguments: add them, or an exemption with its reason");
+        }
+
+        JsonNode plan = plan(query, arguments);
+        List<String> scanned = new ArrayList<>();
+        collect(plan, "Seq Scan", "Relation Name", scanned);
+        assertThat(scanned).as("tables read with a sequential scan by %s, plan:%n%s", query, plan.toPrettyString())
+                .isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexes")
+    void indexChosenByItsStatement(String index) throws Exception {
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE indexname = ?", Integer.class, index))
+                .as("index %s exists", index).isEqualTo(1);
+        PatientQuery query = CHOSEN_BY.get(index);
+        JsonNode plan = plan(query, sampleArguments.get(query));
+        List<String> used = new ArrayList<>();
+        for (String scan : List.of("Index Scan", "Index Only Scan", "Bitmap Index Scan")) {
+            collect(plan, scan, "Index Name", used);
+        }
+        assertThat(used).as("indexes used by %s, plan:%n%s", query, plan.toPrettyString()).contains(index);
+    }
+
+    private static Stream<String> indexes() {
+        return CHOSEN_BY.keySet().stream().sorted();
+    }
+
+    // EXPLAIN sin ANALYZE: planifica pero no ejecuta, así que también vale para REASSIGN_PATIENTS
+    private JsonNode plan(PatientQuery query, Object[] arguments) throws Exception {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + query.getSql(), String.class, arguments);
+        return new ObjectMapper().readTree(json).get(0).get("Plan");
+    }
+
+    /**
+     * Adds the {@code field} of every node of type {@code nodeType} in the plan tree to {@code values}.
+     */
+    private static void collect(JsonNode node, String nodeType, String field, List<String> values) {
+        if (nodeType.equals(node.path("Node Type").asText())) {
+            values.add(node.path(field).asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, nodeType, field, values);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.StatementCounter;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.PatientRepository;
+import org.example.hospital.repo.StaffRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Events racing the rebuild: the mean must keep matching the database, once any background rebuild has landed.
+ */
+class BillDistributionTest extends DemoDataTest {
+
+    @Autowired
+    private BillDistribution distribution;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void eventArrivingAfterARebuildThatReadItsWriteIsSkipped() {
+        PatientChangedEvent late = create(12_345);
+
+        distribution.rebuild(); // El recorrido ya lee la factura nueva
+        eventPublisher.publishEvent(late);
+
+        assertThat(distribution.mean()).isEqualTo(databaseMean());
+    }
+
+    @Test
+    void eventOfAWriteAfterTheRebuildIsApplied() {
+        distribution.rebuild();
+
+        eventPublisher.publishEvent(create(67_890));
+
+        assertThat(distribution.mean()).isEqualTo(databaseMean());
+    }
+
+    @Test
+    void staleDistributionKeepsServingWhileItIsRebuiltInTheBackground() {
+        distribution.rebuild();
+        BigDecimal before = distribution.mean();
+        Staff doctor = staffRepository.findAll().iterator().next();
+        // Como una importación masiva: sin evento por fila
+        jdbcTemplate.update("INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id) VALUES (?, ?, ?, ?)",
+                "Bulk Patient", "Flu", 987_654, doctor.getId());
+        eventPublisher.publishEvent(new PatientsBulkChangedEvent(1));
+
+        StatementCounter.start();
+        BigDecimal stale;
+        List<String> statements;
+        try {
+            stale = distribution.mean();
+        } finally {
+            statements = StatementCounter.stop();
+        }
+
+        assertThat(stale).as("answered from the previous state").isEqualTo(before);
+        assertThat(statements).as("statements on the request thread").isEmpty();
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(distribution.mean()).isEqualTo(databaseMean()));
+    }
+
+    /**
+     * @return The creation event, as the controller would publish it; not published yet.
+     */
+    private PatientChangedEvent create(long billCents) {
+        Staff doctor = staffRepository.findAll().iterator().next();
+        Patient saved = patientRepository.save(new Patient("Rebuild Patient", "Flu", Money.ofMinor(billCents), doctor));
+        return PatientChangedEvent.created(PatientSnapshot.of(saved));
+    }
+
+    private BigDecimal databaseMean() {
+        return jdbcTemplate.queryForObject("SELECT SUM(bill_amount), COUNT(bill_amount) FROM patients", (rs, row) ->
+                rs.getBigDecimal(1).divide(BigDecimal.valueOf(rs.getLong(2)), MathContext.DECIMAL64));
+    }
+}
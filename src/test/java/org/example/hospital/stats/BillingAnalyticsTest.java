@@ -0,0 +1,86 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.StatementCounter;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.StaffRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BillingAnalyticsTest extends DemoDataTest {
+
+    @Autowired
+    private BillingAnalytics analytics;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void staleSnapshotKeepsServingWhileItIsRebuiltInTheBackground() {
+        analytics.rebuild();
+        Staff doctor = staffRepository.save(new Staff("Dr. Bulk", Role.DOCTOR, "Dept-" + UUID.randomUUID()));
+        BillFilter department = new BillFilter(doctor.getDepartment(), null, null, null, null);
+        // Como una importación masiva: sin evento por fila
+        jdbcTemplate.update("INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id) VALUES (?, ?, ?, ?)",
+                "Bulk Patient", "Flu", 250, doctor.getId());
+        eventPublisher.publishEvent(new PatientsBulkChangedEvent(1));
+
+        StatementCounter.start();
+        List<BillGroup> stale;
+        List<String> statements;
+        try {
+            stale = analytics.groupBy(BillDimension.DEPARTMENT, department);
+        } finally {
+            statements = StatementCounter.stop();
+        }
+
+        assertThat(stale).as("answered from the previous snapshot").isEmpty();
+        assertThat(statements).as("statements on the request thread").isEmpty();
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(analytics.groupBy(BillDimension.DEPARTMENT, department))
+                        .extracting(BillGroup::patients).containsExactly(1L));
+    }
+
+    @Test
+    void responseServedFromTheStaleSnapshotIsNotModifiedOnceTheRebuildLands() throws Exception {
+        analytics.rebuild();
+        Staff doctor = staffRepository.save(new Staff("Dr. Bulk", Role.DOCTOR, "Dept-" + UUID.randomUUID()));
+        jdbcTemplate.update("INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id) VALUES (?, ?, ?, ?)",
+                "Bulk Patient", "Flu", 250, doctor.getId());
+        eventPublisher.publishEvent(new PatientsBulkChangedEvent(1));
+
+        String staleTag = breakdownTag(doctor.getDepartment());
+
+        // Si la etiqueta no se renovara, la respuesta obsoleta seguiría sirviéndose (y con 304) indefinidamente
+        await().atMost(Duration.ofSeconds(10)).until(() -> !breakdownTag(doctor.getDepartment()).equals(staleTag));
+        assertThat(analytics.groupBy(BillDimension.DEPARTMENT,
+                new BillFilter(doctor.getDepartment(), null, null, null, null)))
+                .extracting(BillGroup::patients).containsExactly(1L);
+    }
+
+    private String breakdownTag(String department) throws Exception {
+        return mockMvc.perform(get("/patients/stats/bills").param("groupBy", "department").param("department", department))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
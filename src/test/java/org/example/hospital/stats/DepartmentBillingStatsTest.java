@@ -0,0 +1,136 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.StatementCounter;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.PatientRepository;
+import org.example.hospital.repo.StaffRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Events racing the reconcile, and reads of stale aggregates: each test bills patients of a department of its own.
+ */
+class DepartmentBillingStatsTest extends DemoDataTest {
+
+    @Autowired
+    private DepartmentBillingStats stats;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void eventArrivingAfterAReconcileThatCountedItsWriteIsSkipped() {
+        Staff doctor = doctorOfNewDepartment();
+        PatientChangedEvent late = create(doctor, 10_000);
+
+        stats.reconcile(); // Su consulta ya ve el paciente nuevo
+        eventPublisher.publishEvent(late);
+
+        assertThat(billing(doctor.getDepartment())).isEqualTo(
+                new DepartmentBilling(doctor.getDepartment(), Money.ofMinor(10_000), 1, Money.ofMinor(10_000), Money.ofMinor(10_000)));
+    }
+
+    @Test
+    void eventOfAWriteAfterTheReconcileIsApplied() {
+        Staff doctor = doctorOfNewDepartment();
+        eventPublisher.publishEvent(create(doctor, 10_000));
+        stats.reconcile();
+
+        eventPublisher.publishEvent(create(doctor, 30_000));
+
+        assertThat(billing(doctor.getDepartment())).isEqualTo(
+                new DepartmentBilling(doctor.getDepartment(), Money.ofMinor(40_000), 2, Money.ofMinor(10_000), Money.ofMinor(30_000)));
+    }
+
+    @Test
+    void staleAggregatesKeepServingWhileTheyAreReconciledInTheBackground() {
+        Staff doctor = doctorOfNewDepartment();
+        stats.reconcile();
+        // Como una importación masiva: sin evento por fila
+        jdbcTemplate.update("INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id) VALUES (?, ?, ?, ?)",
+                "Bulk Patient", "Flu", 250, doctor.getId());
+        eventPublisher.publishEvent(new PatientsBulkChangedEvent(1));
+
+        Optional<DepartmentBilling> stale = withoutStatements(() -> find(doctor.getDepartment()));
+
+        assertThat(stale).as("answered from the previous aggregates").isEmpty();
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(find(doctor.getDepartment())).map(DepartmentBilling::count).hasValue(1L));
+    }
+
+    @Test
+    void extremesLeftStaleByARemovalAreReReadInTheBackground() {
+        Staff doctor = doctorOfNewDepartment();
+        eventPublisher.publishEvent(create(doctor, 10_000));
+        PatientChangedEvent highest = create(doctor, 30_000);
+        eventPublisher.publishEvent(highest);
+        stats.reconcile();
+        patientRepository.deleteById(highest.after().id());
+        eventPublisher.publishEvent(PatientChangedEvent.deleted(highest.after()));
+
+        DepartmentBilling stale = withoutStatements(() -> billing(doctor.getDepartment()));
+
+        assertThat(stale.count()).isEqualTo(1);
+        assertThat(stale.max()).as("the previous bound, until it is re-read").isEqualTo(Money.ofMinor(30_000));
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(billing(doctor.getDepartment()).max()).isEqualTo(Money.ofMinor(10_000)));
+    }
+
+    private static <T> T withoutStatements(Supplier<T> read) {
+        StatementCounter.start();
+        T result;
+        List<String> statements;
+        try {
+            result = read.get();
+        } finally {
+            statements = StatementCounter.stop();
+        }
+        assertThat(statements).as("statements on the request thread").isEmpty();
+        return result;
+    }
+
+    private Staff doctorOfNewDepartment() {
+        return staffRepository.save(new Staff("Dr. Reconcile", Role.DOCTOR, "Dept-" + UUID.randomUUID()));
+    }
+
+    /**
+     * @return The creation event, as the controller would publish it; not published yet.
+     */
+    private PatientChangedEvent create(Staff doctor, long billCents) {
+        Patient saved = patientRepository.save(new Patient("Reconcile Patient", "Flu", Money.ofMinor(billCents), doctor));
+        return PatientChangedEvent.created(PatientSnapshot.of(saved));
+    }
+
+    private DepartmentBilling billing(String department) {
+        return find(department).orElseThrow();
+    }
+
+    private Optional<DepartmentBilling> find(String department) {
+        return stats.snapshot().stream()
+                .filter(billing -> billing.department().equals(department))
+                .findFirst();
+    }
+}
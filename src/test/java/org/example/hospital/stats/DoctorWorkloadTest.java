@@ -0,0 +1,80 @@
+package org.example.hospital.stats;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.StatementCounter;
+import org.example.hospital.event.PatientChangedEvent;
+import org.example.hospital.event.PatientSnapshot;
+import org.example.hospital.event.PatientsBulkChangedEvent;
+import org.example.hospital.model.Money;
+import org.example.hospital.model.Patient;
+import org.example.hospital.model.Role;
+import org.example.hospital.model.Staff;
+import org.example.hospital.repo.PatientRepository;
+import org.example.hospital.repo.StaffRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DoctorWorkloadTest extends DemoDataTest {
+
+    @Autowired
+    private DoctorWorkload workload;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void eventArrivingAfterARebuildThatCountedItsWriteIsSkipped() {
+        Staff doctor = newDoctor();
+        Patient saved = patientRepository.save(new Patient("Workload Patient", "Flu", Money.ofMinor(10_000), doctor));
+        PatientChangedEvent late = PatientChangedEvent.created(PatientSnapshot.of(saved));
+
+        workload.rebuild(); // La consulta ya cuenta al paciente nuevo
+        eventPublisher.publishEvent(late);
+
+        assertThat(workload.leastLoaded(doctor.getDepartment()))
+                .hasValueSatisfying(load -> assertThat(load.patientCount()).isEqualTo(1));
+    }
+
+    @Test
+    void staleIndexKeepsServingWhileItIsRebuiltInTheBackground() {
+        workload.rebuild();
+        Staff doctor = newDoctor();
+        workload.rebuild();
+        jdbcTemplate.update("INSERT INTO patients (name, diagnosis, bill_amount, assigned_doctor_id) VALUES (?, ?, ?, ?)",
+                "Bulk Patient", "Flu", 250, doctor.getId());
+        eventPublisher.publishEvent(new PatientsBulkChangedEvent(1));
+
+        StatementCounter.start();
+        List<DoctorLoad> stale;
+        List<String> statements;
+        try {
+            stale = workload.ranked(doctor.getDepartment(), 1, true);
+        } finally {
+            statements = StatementCounter.stop();
+        }
+
+        assertThat(stale).as("answered from the previous index").extracting(DoctorLoad::patientCount).containsExactly(0L);
+        assertThat(statements).as("statements on the request thread").isEmpty();
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(workload.ranked(doctor.getDepartment(), 1, true))
+                        .extracting(DoctorLoad::patientCount).containsExactly(1L));
+    }
+
+    private Staff newDoctor() {
+        return staffRepository.save(new Staff("Dr. Workload", Role.DOCTOR, "Dept-" + UUID.randomUUID()));
+    }
+}
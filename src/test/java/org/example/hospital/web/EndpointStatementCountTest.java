@@ -0,0 +1,102 @@
+package org.example.hospital.web;
+
+import org.example.hospital.DemoDataTest;
+import org.example.hospital.StatementCounter;
+import org.example.hospital.event.StaffChangedEvent;
+import org.example.hospital.event.StaffSnapshot;
+import org.example.hospital.repo.StaffRepository;
+import org.example.hospital.stats.BillDistribution;
+import org.example.hospital.stats.BillingAnalytics;
+import org.example.hospital.stats.DepartmentBillingStats;
+import org.example.hospital.stats.DoctorWorkload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Number of SQL statements each read endpoint sends to the database on a cold request (no cached response,
+ * ETag or staff entry), against the demo data: every doctor is different from the next patient's, so a
+ * per-row doctor lookup (N+1) shows up as extra statements. The stats endpoints are served from memory.
+ */
+class EndpointStatementCountTest extends DemoDataTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private DepartmentBillingStats departmentBillingStats;
+    @Autowired
+    private BillDistribution billDistribution;
+    @Autowired
+    private BillingAnalytics billingAnalytics;
+    @Autowired
+    private DoctorWorkload doctorWorkload;
+
+    @BeforeEach
+    void coldCaches() {
+        // Las estadísticas en memoria ya cargadas; las respuestas y ETags guardados, olvidados
+        departmentBillingStats.reconcile();
+        billDistribution.rebuild();
+        billingAnalytics.rebuild();
+        doctorWorkload.rebuild();
+        StaffSnapshot anyStaff = StaffSnapshot.of(staffRepository.findAll().iterator().next());
+        eventPublisher.publishEvent(StaffChangedEvent.updated(anyStaff, anyStaff));
+        cacheManager.getCache(StaffRepository.CACHE).clear();
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            /patients                                              | 1
+            /patients?limit=5                                      | 1
+            /patients?after={firstPatient}&limit=5&view=compact    | 1
+            /patients/{firstPatient}                               | 1
+            /patients/for-doctor?doctorId={smith}                  | 1
+            /patients/for-doctor?doctorId={smith}&view=compact     | 1
+            /patients/above-avg-bill                               | 1
+            /patients/above-avg-bill?percentile=90&limit=5         | 1
+            /patients/search?q=potter                              | 1
+            /staff                                                 | 1
+            /staff/{smith}                                         | 1
+            /patients/stats/avg-bill-per-department                | 0
+            /patients/stats/billing-per-department                 | 0
+            /patients/stats/doctors-with-many-patients?minCount=1  | 0
+            /patients/stats/bills?groupBy=doctor                   | 0
+            /patients/stats/bills/histogram?buckets=5              | 0
+            """)
+    void coldRequestStatementCount(String path, int expectedStatements) throws Exception {
+        String uri = path
+                .replace("{firstPatient}", String.valueOf(id("SELECT MIN(id) FROM patients")))
+                .replace("{smith}", String.valueOf(id("SELECT id FROM staff WHERE name = 'Dr. Smith'")));
+
+        StatementCounter.start();
+        List<String> statements;
+        try {
+            mockMvc.perform(get(uri)).andExpect(status().isOk());
+        } finally {
+            statements = StatementCounter.stop();
+        }
+        assertThat(statements).as("statements for GET %s", uri).hasSize(expectedStatements);
+    }
+
+    private long id(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
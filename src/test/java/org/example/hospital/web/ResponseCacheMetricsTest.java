@@ -0,0 +1,36 @@
+package org.example.hospital.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The response cache publishes the same {@code cache.*} meters as the Spring caches, which Spring Boot tags with
+ * {@code cache} and {@code cache.manager}: Prometheus drops a meter name registered with two sets of tag keys.
+ */
+class ResponseCacheMetricsTest {
+
+    @Test
+    void responseAndSpringCachesAreBothScraped() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new SerializedResponseCache(new ObjectMapper(), new MappingJackson2CborHttpMessageConverter(), registry,
+                1024, Duration.ofMinutes(1), false, DataSize.ofKilobytes(2));
+        // Como CacheMetricsRegistrar de Spring Boot registra la caché "staff"
+        CaffeineCacheMetrics.monitor(registry, Caffeine.newBuilder().recordStats().build(), "staff",
+                "cache.manager", "cacheManager");
+
+        String scrape = registry.scrape();
+
+        assertThat(scrape).containsPattern("cache_gets_total\\{[^}]*cache=\"responses\"");
+        assertThat(scrape).containsPattern("cache_gets_total\\{[^}]*cache=\"staff\"");
+    }
+}
@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# Builds the AOT-processed jar, extracts it and records a class-data-sharing (CDS) archive from a training run,
+# so later starts load the JDK, Spring and Hibernate classes from the archive instead of parsing jar entries.
+#
+# Requirements: a PostgreSQL configured as in application.properties (the training run refreshes the context,
+# which validates the schema), with every migration applied. The archive is only valid for the same JDK and jar.
+#
+# Usage: startup/build-cds-archive.sh [extra application arguments]
+#   then: cd target/cds && java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+#           -jar hospital-api-*-exec.jar --spring.profiles.active=fast-startup
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -B -q -Paot -DskipTests package
+JAR=$(ls target/hospital-api-*-exec.jar | head -1)
+
+rm -rf target/cds
+java -Djarmode=tools -jar "$JAR" extract --destination target/cds
+cd target/cds
+# spring.context.exit=onRefresh: arranca el contexto y sale sin levantar el servidor ni los listeners de ready
+java -XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+  -jar "$(basename "$JAR")" --spring.profiles.active=fast-startup "$@"
+echo "CDS archive: target/cds/application.jsa"